@@ -0,0 +1,105 @@
+package dev.westernpine.pipelines.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.lib.PipelineCodec;
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+
+/**
+ * Encoding and decoding of every frame type, across payload shapes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodecBenchmark {
+	
+	@Param
+	public Shape shape;
+	
+	private PipelineCodec codec = PipelineDefaults.CODEC;
+	
+	private UUID carrier = UUID.randomUUID();
+	
+	private Message message;
+	
+	private Request request;
+	
+	private Response response;
+	
+	private byte[] messageFrame;
+	
+	private byte[] requestFrame;
+	
+	private byte[] responseFrame;
+	
+	@Setup
+	public void setup() {
+		message = new Message(carrier);
+		shape.fill(message.getEncodedPayload());
+		request = new Request(carrier);
+		shape.fill(request.getEncodedPayload());
+		response = request.toResponse();
+		shape.fill(response.getEncodedPayload());
+		messageFrame = codec.encode(message);
+		requestFrame = codec.encode(request);
+		responseFrame = codec.encode(response);
+	}
+	
+	@Benchmark
+	public byte[] encodeMessage() {
+		return codec.encode(message);
+	}
+	
+	@Benchmark
+	public byte[] encodeRequest() {
+		return codec.encode(request);
+	}
+	
+	@Benchmark
+	public byte[] encodeResponse() {
+		return codec.encode(response);
+	}
+	
+	@Benchmark
+	public void decodeMessage(Blackhole blackhole) {
+		Message message = codec.decodeMessage(carrier, ByteBuffer.wrap(messageFrame));
+		while(message.hasNext())
+			blackhole.consume(message.read());
+	}
+	
+	@Benchmark
+	public void decodeRequest(Blackhole blackhole) {
+		Request request = codec.decodeRequest(carrier, ByteBuffer.wrap(requestFrame));
+		while(request.hasNext())
+			blackhole.consume(request.read());
+	}
+	
+	@Benchmark
+	public void decodeResponse(Blackhole blackhole) {
+		Response response = codec.decodeResponse(carrier, ByteBuffer.wrap(responseFrame));
+		while(response.hasNext())
+			blackhole.consume(response.read());
+	}
+
+}
@@ -0,0 +1,74 @@
+package dev.westernpine.pipelines.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+import dev.westernpine.pipelines.live.local.LoopbackPipeline;
+
+/**
+ * Receiving a frame and dispatching it to a growing amount of listeners.
+ * 
+ * Frames are received on the benchmark thread, leaving out the handoff between threads {@link RoundTripBenchmark} measures.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DispatchBenchmark {
+	
+	@Param({"1", "4", "16", "64"})
+	public int listeners;
+	
+	@Param({"false", "true"})
+	public boolean routed;
+	
+	private LoopbackPipeline pipeline = new LoopbackPipeline("benchmark");
+	
+	private UUID carrier = UUID.randomUUID();
+	
+	private byte[] frame;
+	
+	@Setup
+	public void setup(Blackhole blackhole) {
+		for(int i = 0; i < listeners; i++) {
+			if(routed)
+				pipeline.onMessage("benchmark", blackhole::consume);
+			else
+				pipeline.onMessage(blackhole::consume);
+		}
+		Message message = new Message(carrier);
+		Shape.PRIMITIVES.fill(message.getEncodedPayload());
+		if(routed)
+			message.setRoute("benchmark");
+		frame = PipelineDefaults.CODEC.encode(message);
+	}
+	
+	@Benchmark
+	public void receive() {
+		pipeline.receive(carrier, frame);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		pipeline.close();
+	}
+
+}
@@ -0,0 +1,71 @@
+package dev.westernpine.pipelines.benchmarks;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.live.local.LoopbackPair;
+import dev.westernpine.pipelines.live.local.LoopbackPipeline;
+
+/**
+ * A request and its response travelling through a pair of loopback pipelines, each delivering on a thread of its own,
+ * while a growing amount of other requests are still awaiting their responses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RoundTripBenchmark {
+	
+	@Param({"10", "1000", "100000"})
+	public int pending;
+	
+	private LoopbackPair pair = new LoopbackPair();
+	
+	private LoopbackPipeline proxy = pair.getProxy();
+	
+	private LoopbackPipeline server = pair.getServer();
+	
+	private UUID carrier = UUID.randomUUID();
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		server.onRequest(request -> server.respond(request.toResponse().writeInt(request.readInt())));
+		
+		// Lost requests are never answered, so they stay awaiting their responses.
+		pair.setLossRate(1);
+		for(int i = 0; i < pending; i++)
+			proxy.request(new Request(carrier).writeInt(i), Duration.ofHours(1));
+		pair.setLossRate(0);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pair.close();
+	}
+	
+	@Benchmark
+	public Optional<Response> roundTrip() {
+		return proxy.request(new Request(carrier).writeInt(1), Duration.ofSeconds(5)).join();
+	}
+
+}
@@ -0,0 +1,77 @@
+package dev.westernpine.pipelines.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+
+import dev.westernpine.pipelines.lib.Payload;
+
+/**
+ * The payload shapes the benchmarks are run against.
+ */
+public enum Shape {
+	
+	/**
+	 * No payload at all, measuring only the frame header.
+	 */
+	EMPTY {
+		@Override
+		public void fill(Payload payload) {}
+	},
+	
+	/**
+	 * A handful of primitives, written without boxing.
+	 */
+	PRIMITIVES {
+		@Override
+		public void fill(Payload payload) {
+			payload.writeInt(42);
+			payload.writeInt(-7);
+			payload.writeLong(System.currentTimeMillis());
+			payload.writeDouble(20.0D);
+			payload.writeBoolean(true);
+		}
+	},
+	
+	/**
+	 * Strings and UUIDs, as most player keyed messages look.
+	 */
+	STRINGS {
+		@Override
+		public void fill(Payload payload) {
+			payload.writeUUID(UUID.randomUUID());
+			payload.writeString("economy:balance");
+			payload.writeString("The quick brown fox jumps over the lazy dog.");
+			payload.writeUUID(UUID.randomUUID());
+		}
+	},
+	
+	/**
+	 * An object falling back to java serialization.
+	 */
+	SERIALIZED {
+		@Override
+		public void fill(Payload payload) {
+			payload.append(new ArrayList<>(Arrays.asList("lobby-1", "lobby-2", "survival", "creative")));
+		}
+	},
+	
+	/**
+	 * A large payload, close to what a chunk of player data would be.
+	 */
+	LARGE {
+		@Override
+		public void fill(Payload payload) {
+			for(int i = 0; i < 256; i++) {
+				payload.writeInt(i);
+				payload.writeString("entry-" + i);
+			}
+		}
+	};
+	
+	/**
+	 * Writes this shape into a payload.
+	 */
+	public abstract void fill(Payload payload);
+
+}
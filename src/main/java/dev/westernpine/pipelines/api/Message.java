@@ -1,17 +1,26 @@
 package dev.westernpine.pipelines.api;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.LinkedList;
 import java.util.UUID;
 
 import dev.westernpine.pipelines.lib.EmptyMessageException;
+import dev.westernpine.pipelines.lib.Payload;
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+import dev.westernpine.pipelines.lib.Recycler;
+import dev.westernpine.pipelines.lib.Recycler.Leak;
+import dev.westernpine.pipelines.lib.Route;
 
 public class Message {
 	
+	private static final Recycler<Message> RECYCLER = new Recycler<>(() -> new Message(null), 256);
+	
 	private UUID carrier;
-	private LinkedList<Object> payload = new LinkedList<>();
+	private Payload payload = new Payload();
+	private String route;
+	private int routeId;
+	private boolean routed;
+	private boolean released;
+	private Leak leak;
 
 	/**
 	 * A generic message to be sent.
@@ -19,6 +28,16 @@ public class Message {
 	 * @param payload The payload of the message.
 	 */
 	public Message(UUID carrier, LinkedList<Object> payload) {
+		this.carrier = carrier;
+		this.payload = new Payload(payload);
+	}
+	
+	/**
+	 * A generic message to be sent.
+	 * 
+	 * @param payload The encoded payload of the message.
+	 */
+	public Message(UUID carrier, Payload payload) {
 		this.carrier = carrier;
 		this.payload = payload;
 	}
@@ -30,6 +49,39 @@ public class Message {
 		this.carrier = carrier;
 	}
 	
+	/**
+	 * Obtains a pooled message, to be released once it has been sent or read.
+	 * 
+	 * @param carrier The player carrying the message.
+	 * @return An empty message.
+	 */
+	public static Message obtain(UUID carrier) {
+		Message message = RECYCLER.get();
+		message.carrier = carrier;
+		message.released = false;
+		message.leak = RECYCLER.track(message);
+		return message;
+	}
+	
+	/**
+	 * Returns this message and its buffer to the pool, it must not be used after being released.
+	 * 
+	 * @throws IllegalStateException If the message was already released.
+	 */
+	public void release() {
+		if(released)
+			throw new IllegalStateException("The message has already been released!");
+		released = true;
+		if(leak != null) {
+			leak.close();
+			leak = null;
+		}
+		carrier = null;
+		setRoute(null);
+		payload.reset();
+		RECYCLER.recycle(this);
+	}
+	
 	/**
 	 * @return The player carrying the message.
 	 */
@@ -45,12 +97,62 @@ public class Message {
 	}
 
 	
+	/**
+	 * @return The route of the message, otherwise null if it is unrouted or the route is unknown.
+	 */
+	public String getRoute() {
+		return this.route;
+	}
+	
+	/**
+	 * Routes the message to the handlers registered for the route on the receiving pipeline,
+	 * instead of the handlers registered without one.
+	 * 
+	 * @param route The route, otherwise null to unroute the message.
+	 */
+	public void setRoute(String route) {
+		this.route = route;
+		this.routed = route != null;
+		this.routeId = this.routed ? Route.id(route) : 0;
+	}
+	
+	/**
+	 * @return True if the message travels on a route.
+	 */
+	public boolean isRouted() {
+		return this.routed;
+	}
+	
+	/**
+	 * @return The id the route travels as.
+	 */
+	public int getRouteId() {
+		return this.routeId;
+	}
+	
+	/**
+	 * Sets the id of the route the message travels on, used by codecs when decoding.
+	 * The name of the route is resolved by the receiving pipeline.
+	 */
+	public void setRouteId(int routeId) {
+		this.route = null;
+		this.routed = true;
+		this.routeId = routeId;
+	}
+	
 	/**
 	 * Get a copy of the message payload at it's current state.
 	 * 
 	 * @return A copy of the message payload at it's current state.
 	 */
 	public LinkedList<Object> getPayload() {
+		return payload.toList();
+	}
+	
+	/**
+	 * @return The encoded payload backing this message.
+	 */
+	public Payload getEncodedPayload() {
 		return payload;
 	}
 	
@@ -61,7 +163,7 @@ public class Message {
 	 * @return The same mutable message object, used for stream-lining code.
 	 */
 	public Message inject(Object object) {
-		payload.addFirst(object);
+		payload.inject(object);
 		return this;
 	}
 
@@ -72,7 +174,73 @@ public class Message {
 	 * @return The same mutable message object, used for stream-lining code.
 	 */
 	public Message append(Object object) {
-		payload.addLast(object);
+		payload.append(object);
+		return this;
+	}
+	
+	/**
+	 * Appends an int to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Message writeInt(int value) {
+		payload.writeInt(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a long to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Message writeLong(long value) {
+		payload.writeLong(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a double to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Message writeDouble(double value) {
+		payload.writeDouble(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a boolean to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Message writeBoolean(boolean value) {
+		payload.writeBoolean(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a String to the end of the payload.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Message writeString(String value) {
+		payload.writeString(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a UUID to the end of the payload.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Message writeUUID(UUID value) {
+		payload.writeUUID(value);
 		return this;
 	}
 	
@@ -80,7 +248,7 @@ public class Message {
 	 * @return True if the payload has content remaining.
 	 */
 	public boolean hasNext() {
-		return !payload.isEmpty();
+		return payload.hasNext();
 	}
 
 	/**
@@ -91,9 +259,7 @@ public class Message {
 	 * @throws EmptyMessageException If the message has an empty payload (Nothing else to read).
 	 */
 	public Object read() {
-		if(payload.isEmpty())
-			throw new RuntimeException(new EmptyMessageException());
-		return payload.remove(0);
+		return payload.read();
 	}
 
 	/**
@@ -110,31 +276,157 @@ public class Message {
 		return clazz.cast(read());
 	}
 	
+	/**
+	 * Removes and reads the first object's data from the payload as an int.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not an int.
+	 */
+	public int readInt() {
+		return payload.readInt();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a long.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a long.
+	 */
+	public long readLong() {
+		return payload.readLong();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a double.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a double.
+	 */
+	public double readDouble() {
+		return payload.readDouble();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a boolean.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a boolean.
+	 */
+	public boolean readBoolean() {
+		return payload.readBoolean();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a String.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a String.
+	 */
+	public String readString() {
+		return payload.readString();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a UUID.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a UUID.
+	 */
+	public UUID readUUID() {
+		return payload.readUUID();
+	}
+	
+	/**
+	 * Reads the first object's data from the payload without removing it.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 */
+	public Object peek() {
+		return payload.peek();
+	}
+	
+	/**
+	 * Reads the first object's data from the payload without removing it, and attempts to cast it.
+	 * 
+	 * @param <T> The class type.
+	 * @param clazz The class.
+	 * @return The data read casted to the object class.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the class could not be cast to the object.
+	 */
+	public <T> T peek(Class<T> clazz) {
+		return clazz.cast(peek());
+	}
+	
+	/**
+	 * Removes the first object from the payload without decoding it.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to skip).
+	 */
+	public void skip() {
+		payload.skip();
+	}
+	
+	/**
+	 * Removes the first objects from the payload without decoding them.
+	 * 
+	 * @param count The amount of objects to remove.
+	 * 
+	 * @throws EmptyMessageException If the payload has fewer objects (Nothing else to skip).
+	 */
+	public void skip(int count) {
+		for(int i = 0; i < count; i++)
+			payload.skip();
+	}
+	
+	/**
+	 * A replica of this message reading the same payload in place, with its own read position.
+	 * Reading either never affects the other, but this message must not be written to or released while the view is in use.
+	 * 
+	 * @return A view of this message.
+	 */
+	public Message view() {
+		Message message = new Message(carrier, payload.view());
+		message.route = route;
+		message.routeId = routeId;
+		message.routed = routed;
+		return message;
+	}
+	
 	/**
 	 * @return An exact replica of this message.
 	 */
 	public Message clone() {
-		return new Message(carrier, payload);
+		Message message = new Message(carrier, payload.copy());
+		message.route = route;
+		message.routeId = routeId;
+		message.routed = routed;
+		return message;
 	}
 
 	
 	/**
-	 * Get the byte array representation of this message.
+	 * Get the byte array representation of this message, encoded by {@link PipelineDefaults#CODEC}.
 	 * 
 	 * @return The byte array representation of this message.
-	 * 
-	 * @throws IOException If an I/O error occurs while writing stream header.
 	 */
 	public byte[] toByteArray() {
-		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
-			try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
-				output.writeObject(MessageType.MESSAGE);
-				output.writeObject(payload);
-				return bytes.toByteArray();
-			}
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
+		return PipelineDefaults.CODEC.encode(this);
 	}
 	
 	/**
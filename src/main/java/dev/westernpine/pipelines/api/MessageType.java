@@ -5,6 +5,12 @@ public enum MessageType {
 	MESSAGE(),
 	REQUEST(),
 	RESPONSE(),
+	BATCH(),
+	FRAGMENT(),
+	STREAM(),
+	CREDIT(),
+	CANCEL(),
+	END(),
 	;
 
 }
@@ -1,22 +1,181 @@
 package dev.westernpine.pipelines.api;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
+
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+import dev.westernpine.pipelines.lib.PipelineMetrics;
+import dev.westernpine.pipelines.lib.TypedCodec;
 
 public interface Pipeline {
 	
 	/**
 	 * Adds a listener for messages received.
 	 * @param messageHandler The handler.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onMessage(Consumer<Message> messageHandler);
+	
+	/**
+	 * Adds a listener for messages received, dispatched on its own executor.
+	 * @param messageHandler The handler.
+	 * @param executor The executor to run the handler on.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onMessage(Consumer<Message> messageHandler, Executor executor);
+	
+	/**
+	 * Adds a listener for messages received, dispatched on its own executor and ordered by priority.
+	 * @param messageHandler The handler.
+	 * @param executor The executor to run the handler on, otherwise null for the default.
+	 * @param priority The priority of the handler, handlers with a higher priority are dispatched to first, the default is 0.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onMessage(Consumer<Message> messageHandler, Executor executor, int priority);
+	
+	/**
+	 * Adds a listener for messages received on a route.
+	 * Routed messages are only dispatched to the listeners of their route.
+	 * @param route The route, such as "economy:balance".
+	 * @param messageHandler The handler.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onMessage(String route, Consumer<Message> messageHandler);
+	
+	/**
+	 * Adds a listener for messages received on a route, dispatched on its own executor.
+	 * @param route The route, such as "economy:balance".
+	 * @param messageHandler The handler.
+	 * @param executor The executor to run the handler on.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onMessage(String route, Consumer<Message> messageHandler, Executor executor);
+	
+	/**
+	 * Adds a listener for messages received on a route, dispatched on its own executor and ordered by priority.
+	 * @param route The route, such as "economy:balance".
+	 * @param messageHandler The handler.
+	 * @param executor The executor to run the handler on, otherwise null for the default.
+	 * @param priority The priority of the handler, handlers with a higher priority are dispatched to first, the default is 0.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onMessage(String route, Consumer<Message> messageHandler, Executor executor, int priority);
+	
+	/**
+	 * Adds a listener for typed messages of a type, registering the type if it is not already.
+	 * @param type The type, see {@link #registerType(Class)}.
+	 * @param handler The handler.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public <T> Registration onMessage(Class<T> type, Consumer<T> handler);
+	
+	/**
+	 * Adds a listener for typed messages of a type, dispatched on its own executor.
+	 * @param type The type, see {@link #registerType(Class)}.
+	 * @param handler The handler.
+	 * @param executor The executor to run the handler on.
+	 * @return The registration of the handler, to unregister it with.
 	 */
-	public void onMessage(Consumer<Message> messageHandler);
+	public <T> Registration onMessage(Class<T> type, Consumer<T> handler, Executor executor);
+	
+	/**
+	 * Adds a listener for typed messages of a type, dispatched on its own executor and ordered by priority.
+	 * @param type The type, see {@link #registerType(Class)}.
+	 * @param handler The handler.
+	 * @param executor The executor to run the handler on, otherwise null for the default.
+	 * @param priority The priority of the handler, handlers with a higher priority are dispatched to first, the default is 0.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public <T> Registration onMessage(Class<T> type, Consumer<T> handler, Executor executor, int priority);
 	
 	/**
 	 * Adds a listener for requests received.
 	 * @param requestHandler The handler.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onRequest(Consumer<Request> requestHandler);
+	
+	/**
+	 * Adds a listener for requests received, dispatched on its own executor.
+	 * @param requestHandler The handler.
+	 * @param executor The executor to run the handler on.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onRequest(Consumer<Request> requestHandler, Executor executor);
+	
+	/**
+	 * Adds a listener for requests received, dispatched on its own executor and ordered by priority.
+	 * @param requestHandler The handler.
+	 * @param executor The executor to run the handler on, otherwise null for the default.
+	 * @param priority The priority of the handler, handlers with a higher priority are dispatched to first, the default is 0.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onRequest(Consumer<Request> requestHandler, Executor executor, int priority);
+	
+	/**
+	 * Adds a listener for requests received on a route.
+	 * Routed requests are only dispatched to the listeners of their route.
+	 * @param route The route, such as "economy:balance".
+	 * @param requestHandler The handler.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onRequest(String route, Consumer<Request> requestHandler);
+	
+	/**
+	 * Adds a listener for requests received on a route, dispatched on its own executor.
+	 * @param route The route, such as "economy:balance".
+	 * @param requestHandler The handler.
+	 * @param executor The executor to run the handler on.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onRequest(String route, Consumer<Request> requestHandler, Executor executor);
+	
+	/**
+	 * Adds a listener for requests received on a route, dispatched on its own executor and ordered by priority.
+	 * @param route The route, such as "economy:balance".
+	 * @param requestHandler The handler.
+	 * @param executor The executor to run the handler on, otherwise null for the default.
+	 * @param priority The priority of the handler, handlers with a higher priority are dispatched to first, the default is 0.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration onRequest(String route, Consumer<Request> requestHandler, Executor executor, int priority);
+	
+	/**
+	 * Answers requests received on a route with the response the handler completes with, sent on whichever thread completes it.
+	 * Requests are handled as they arrive, and given up on without a response after {@link PipelineDefaults#CACHE_TIME} milliseconds.
+	 * @param route The route, such as "economy:balance".
+	 * @param handler Returns the stage completing with the response, which may complete with null to not respond.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration handle(String route, Function<Request, ? extends CompletionStage<Response>> handler);
+	
+	/**
+	 * Answers requests received on a route with the response the handler completes with, sent on whichever thread completes it.
+	 * @param route The route, such as "economy:balance".
+	 * @param handler Returns the stage completing with the response, which may complete with null to not respond.
+	 * @param maxConcurrent The most requests handled at once, the rest wait in order for one to finish.
+	 * @param timeout How long to wait for a response, including any time spent waiting, before giving up on the request without a response.
+	 * @return The registration of the handler, to unregister it with.
+	 */
+	public Registration handle(String route, Function<Request, ? extends CompletionStage<Response>> handler, int maxConcurrent, Duration timeout);
+	
+	/**
+	 * Answers requests received on a route with the response the handler completes with, handling them on an executor.
+	 * Requests that waited for another to finish are also started on the executor.
+	 * @param route The route, such as "economy:balance".
+	 * @param handler Returns the stage completing with the response, which may complete with null to not respond.
+	 * @param maxConcurrent The most requests handled at once, the rest wait in order for one to finish.
+	 * @param timeout How long to wait for a response, including any time spent waiting, before giving up on the request without a response.
+	 * @param executor The executor to handle requests on, otherwise null for the default, where waiting requests start on the common fork join pool if the default runs handlers directly.
+	 * @return The registration of the handler, to unregister it with.
 	 */
-	public void onRequest(Consumer<Request> requestHandler);
+	public Registration handle(String route, Function<Request, ? extends CompletionStage<Response>> handler, int maxConcurrent, Duration timeout, Executor executor);
 	
 	/**
 	 * Send the message using the carrier's connection.
@@ -24,17 +183,83 @@ public interface Pipeline {
 	 */
 	public void send(Message message);
 	
+	/**
+	 * Registers a type to be sent as typed messages, building its codec.
+	 * Its fields are written in declaration order, with no per message reflection, see {@link TypedCodec}.
+	 * Types are registered when first sent or listened for, so registering them up front only moves that work to startup.
+	 * @param type The type, travelling on a route named after the type's class name.
+	 * @throws IllegalArgumentException If the type can't be constructed from its fields.
+	 */
+	public <T> void registerType(Class<T> type);
+	
+	/**
+	 * Registers a type to be sent as typed messages on a route of its own, for when the pipelines name the type differently.
+	 * Register it before it is first sent or listened for, since the route can't change afterwards.
+	 * @param type The type.
+	 * @param route The route the type travels on.
+	 * @throws IllegalArgumentException If the type can't be constructed from its fields.
+	 * @throws IllegalStateException If the type is already registered on another route.
+	 */
+	public <T> void registerType(Class<T> type, String route);
+	
+	/**
+	 * Sends a value of a registered type as a typed message, registering the type if it is not already.
+	 * @param carrier The player to carry the message.
+	 * @param value The value to be sent.
+	 */
+	public void send(UUID carrier, Object value);
+	
 	/**
 	 * Requests a response from the server/proxy the carrier is connected to/through.
+	 * The requester owns the response, and should release it once read while {@link PipelineDefaults#RECYCLING} is enabled.
 	 * @param request The request to be sent.
 	 * @return The response from the server/proxy.
 	 */
 	public CompletableFuture<Optional<Response>> request(Request request);
 	
+	/**
+	 * Requests a response from the server/proxy the carrier is connected to/through.
+	 * The requester owns the response, and should release it once read while {@link PipelineDefaults#RECYCLING} is enabled.
+	 * @param request The request to be sent.
+	 * @param timeout How long to wait for the response before completing empty.
+	 * @return The response from the server/proxy.
+	 */
+	public CompletableFuture<Optional<Response>> request(Request request, Duration timeout);
+	
 	/**
 	 * Replies to a request with the same uuid.
 	 * @param response The response to be sent.
 	 */
 	public void respond(Response response);
+	
+	/**
+	 * Sends a request expecting a stream of responses, once a subscriber subscribes.
+	 * The subscriber's demand is sent to the responder as credits, so it only sends as many responses as requested.
+	 * Responses are delivered on the thread that received them.
+	 * @param request The request to be sent.
+	 * @return The responses, which fail if nothing arrives for {@link PipelineDefaults#CACHE_TIME} milliseconds while responses are requested.
+	 */
+	public PipelineFlow.Publisher<Response> requestStream(Request request);
+	
+	/**
+	 * Sends a request expecting a stream of responses, once a subscriber subscribes.
+	 * @param request The request to be sent.
+	 * @param timeout How long to wait for the next response while responses are requested.
+	 * @return The responses.
+	 */
+	public PipelineFlow.Publisher<Response> requestStream(Request request, Duration timeout);
+	
+	/**
+	 * Opens the stream of responses to a streamed request.
+	 * @param request A request received, for which {@link Request#isStream()} is true.
+	 * @return The stream to send the responses over.
+	 * @throws IllegalStateException If the request is not streamed, or its stream is already closed.
+	 */
+	public ResponseStream respondStream(Request request);
+	
+	/**
+	 * @return What this pipeline has sent, received and waited on.
+	 */
+	public PipelineMetrics getMetrics();
 
 }
@@ -0,0 +1,55 @@
+package dev.westernpine.pipelines.api;
+
+/**
+ * The reactive streams interfaces, matching java.util.concurrent.Flow which is unavailable on Java 8.
+ * Adapting these to java.util.concurrent.Flow, or any reactive streams library, only takes delegating each method.
+ */
+public final class PipelineFlow {
+	
+	private PipelineFlow() {}
+	
+	/**
+	 * A producer of items, delivered to subscribers as they request them.
+	 */
+	public static interface Publisher<T> {
+		
+		/**
+		 * Adds a subscriber, which is handed a subscription through {@link Subscriber#onSubscribe(Subscription)}.
+		 */
+		public void subscribe(Subscriber<? super T> subscriber);
+		
+	}
+	
+	/**
+	 * A receiver of items, which only receives as many items as it has requested.
+	 */
+	public static interface Subscriber<T> {
+		
+		public void onSubscribe(Subscription subscription);
+		
+		public void onNext(T item);
+		
+		public void onError(Throwable throwable);
+		
+		public void onComplete();
+		
+	}
+	
+	/**
+	 * The link between a publisher and a subscriber.
+	 */
+	public static interface Subscription {
+		
+		/**
+		 * Requests up to n more items.
+		 */
+		public void request(long n);
+		
+		/**
+		 * Stops receiving items.
+		 */
+		public void cancel();
+		
+	}
+
+}
@@ -0,0 +1,98 @@
+package dev.westernpine.pipelines.api;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+
+/**
+ * A pipeline on a proxy, which can also address the servers behind it by name, rather than by a carrier on them.
+ * Any player connected to a server carries the frames addressed to it.
+ */
+public interface ProxyPipeline extends Pipeline {
+	
+	/**
+	 * @return The names of every server behind the proxy.
+	 */
+	public Collection<String> getServers();
+	
+	/**
+	 * Sends the message to a server, ignoring its carrier.
+	 * @param server The name of the server.
+	 * @param message The message to be sent.
+	 * @throws RuntimeException Caused by a NoRoutablePathException if the server is unknown or has no players connected.
+	 */
+	public void send(String server, Message message);
+	
+	/**
+	 * Sends the message to each of a group of servers, skipping those without players connected.
+	 * @param servers The names of the servers.
+	 * @param message The message to be sent.
+	 * @return The amount of servers the message was sent to.
+	 */
+	public int send(Collection<String> servers, Message message);
+	
+	/**
+	 * Sends the message to every server, skipping those without players connected.
+	 * @param message The message to be sent.
+	 * @return The amount of servers the message was sent to.
+	 */
+	public int sendAll(Message message);
+	
+	/**
+	 * Requests a response from a server, ignoring the request's carrier.
+	 * @param server The name of the server.
+	 * @param request The request to be sent.
+	 * @return The response from the server.
+	 * @throws RuntimeException Caused by a NoRoutablePathException if the server is unknown or has no players connected.
+	 */
+	public CompletableFuture<Optional<Response>> request(String server, Request request);
+	
+	/**
+	 * Requests a response from a server, ignoring the request's carrier.
+	 * @param server The name of the server.
+	 * @param request The request to be sent.
+	 * @param timeout How long to wait for the response before completing empty.
+	 * @return The response from the server.
+	 * @throws RuntimeException Caused by a NoRoutablePathException if the server is unknown or has no players connected.
+	 */
+	public CompletableFuture<Optional<Response>> request(String server, Request request, Duration timeout);
+	
+	/**
+	 * Requests a response from each of a group of servers at once, as copies of the request with their own UUIDs.
+	 * @param servers The names of the servers.
+	 * @param request The request to be sent.
+	 * @return The responses, in the order of the servers, once every server has responded or timed out after {@link PipelineDefaults#CACHE_TIME} milliseconds.
+	 * Servers without players connected, or that did not respond in time, are left out.
+	 */
+	public CompletableFuture<List<Response>> request(Collection<String> servers, Request request);
+	
+	/**
+	 * Requests a response from each of a group of servers at once, as copies of the request with their own UUIDs.
+	 * @param servers The names of the servers.
+	 * @param request The request to be sent.
+	 * @param timeout How long to wait for each response.
+	 * @return The responses, in the order of the servers, once every server has responded or timed out.
+	 * Servers without players connected, or that did not respond in time, are left out.
+	 */
+	public CompletableFuture<List<Response>> request(Collection<String> servers, Request request, Duration timeout);
+	
+	/**
+	 * Requests a response from every server at once.
+	 * @param request The request to be sent.
+	 * @return The responses, once every server has responded or timed out after {@link PipelineDefaults#CACHE_TIME} milliseconds.
+	 */
+	public CompletableFuture<List<Response>> requestAll(Request request);
+	
+	/**
+	 * Requests a response from every server at once.
+	 * @param request The request to be sent.
+	 * @param timeout How long to wait for each response.
+	 * @return The responses, once every server has responded or timed out.
+	 */
+	public CompletableFuture<List<Response>> requestAll(Request request, Duration timeout);
+
+}
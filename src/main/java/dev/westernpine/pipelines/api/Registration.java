@@ -0,0 +1,24 @@
+package dev.westernpine.pipelines.api;
+
+/**
+ * A handler registered to a pipeline, which can be unregistered at any time, such as when its plugin is disabled.
+ */
+public interface Registration {
+	
+	/**
+	 * Stops dispatching to the handler.
+	 * Messages already being dispatched may still reach it, unregistering again does nothing.
+	 */
+	public void unregister();
+	
+	/**
+	 * @return True until the handler is unregistered.
+	 */
+	public boolean isRegistered();
+	
+	/**
+	 * @return The priority of the handler, handlers with a higher priority are dispatched to first.
+	 */
+	public int getPriority();
+
+}
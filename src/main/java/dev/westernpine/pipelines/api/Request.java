@@ -1,19 +1,31 @@
 package dev.westernpine.pipelines.api;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.time.Duration;
 import java.util.LinkedList;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import dev.westernpine.pipelines.lib.EmptyMessageException;
+import dev.westernpine.pipelines.lib.Payload;
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+import dev.westernpine.pipelines.lib.Recycler;
+import dev.westernpine.pipelines.lib.Recycler.Leak;
+import dev.westernpine.pipelines.lib.Route;
 
 public class Request {
 	
+	private static final Recycler<Request> RECYCLER = new Recycler<>(() -> new Request(null), 256);
+	
 	private UUID carrier;
-	private LinkedList<Object> payload = new LinkedList<>();
+	private Payload payload = new Payload();
+	private String route;
+	private int routeId;
+	private boolean routed;
+	private boolean stream;
+	private boolean cacheable;
+	private boolean released;
+	private Leak leak;
 	private UUID uuid = UUID.randomUUID();
 
 	/**
@@ -22,6 +34,17 @@ public class Request {
 	 * @param payload The payload of the request.
 	 */
 	public Request(UUID carrier, LinkedList<Object> payload, UUID uuid) {
+		this.carrier = carrier;
+		this.payload = new Payload(payload);
+		this.uuid = uuid;
+	}
+	
+	/**
+	 * A generic request to be sent.
+	 * 
+	 * @param payload The encoded payload of the request.
+	 */
+	public Request(UUID carrier, Payload payload, UUID uuid) {
 		this.carrier = carrier;
 		this.payload = payload;
 		this.uuid = uuid;
@@ -34,6 +57,53 @@ public class Request {
 		this.carrier = carrier;
 	}
 	
+	/**
+	 * Obtains a pooled request, to be released once it has been sent or read.
+	 * 
+	 * @param carrier The player carrying the request.
+	 * @return An empty request with a new UUID.
+	 */
+	public static Request obtain(UUID carrier) {
+		return obtain(carrier, UUID.randomUUID());
+	}
+	
+	/**
+	 * Obtains a pooled request, to be released once it has been sent or read.
+	 * 
+	 * @param carrier The player carrying the request.
+	 * @param uuid The UUID of the request.
+	 * @return An empty request.
+	 */
+	public static Request obtain(UUID carrier, UUID uuid) {
+		Request request = RECYCLER.get();
+		request.carrier = carrier;
+		request.uuid = uuid;
+		request.released = false;
+		request.leak = RECYCLER.track(request);
+		return request;
+	}
+	
+	/**
+	 * Returns this request and its buffer to the pool, it must not be used after being released.
+	 * 
+	 * @throws IllegalStateException If the request was already released.
+	 */
+	public void release() {
+		if(released)
+			throw new IllegalStateException("The request has already been released!");
+		released = true;
+		if(leak != null) {
+			leak.close();
+			leak = null;
+		}
+		carrier = null;
+		stream = false;
+		cacheable = false;
+		setRoute(null);
+		payload.reset();
+		RECYCLER.recycle(this);
+	}
+	
 	/**
 	 * @return The player carrying the message.
 	 */
@@ -48,12 +118,91 @@ public class Request {
 		this.carrier = carrier;
 	}
 	
+	/**
+	 * @return The route of the request, otherwise null if it is unrouted or the route is unknown.
+	 */
+	public String getRoute() {
+		return this.route;
+	}
+	
+	/**
+	 * Routes the request to the handlers registered for the route on the receiving pipeline,
+	 * instead of the handlers registered without one.
+	 * 
+	 * @param route The route, otherwise null to unroute the request.
+	 */
+	public void setRoute(String route) {
+		this.route = route;
+		this.routed = route != null;
+		this.routeId = this.routed ? Route.id(route) : 0;
+	}
+	
+	/**
+	 * @return True if the request travels on a route.
+	 */
+	public boolean isRouted() {
+		return this.routed;
+	}
+	
+	/**
+	 * @return The id the route travels as.
+	 */
+	public int getRouteId() {
+		return this.routeId;
+	}
+	
+	/**
+	 * Sets the id of the route the request travels on, used by codecs when decoding.
+	 * The name of the route is resolved by the receiving pipeline.
+	 */
+	public void setRouteId(int routeId) {
+		this.route = null;
+		this.routed = true;
+		this.routeId = routeId;
+	}
+	
+	/**
+	 * @return True if the request expects a stream of responses, rather than a single response.
+	 */
+	public boolean isStream() {
+		return this.stream;
+	}
+	
+	/**
+	 * Sets whether the request expects a stream of responses, set by the pipeline when the request is streamed.
+	 */
+	public void setStream(boolean stream) {
+		this.stream = stream;
+	}
+	
+	/**
+	 * @return True if the request is idempotent, so its response may be shared with identical requests.
+	 */
+	public boolean isCacheable() {
+		return this.cacheable;
+	}
+	
+	/**
+	 * Marks the request as idempotent, so pipelines with a request cache may answer it with the response to an identical request.
+	 * The flag is not sent with the request.
+	 */
+	public void setCacheable(boolean cacheable) {
+		this.cacheable = cacheable;
+	}
+	
 	/**
 	 * Get a copy of the message payload at it's current state.
 	 * 
 	 * @return A copy of the message payload at it's current state.
 	 */
 	public LinkedList<Object> getPayload() {
+		return payload.toList();
+	}
+	
+	/**
+	 * @return The encoded payload backing this message.
+	 */
+	public Payload getEncodedPayload() {
 		return payload;
 	}
 	
@@ -71,7 +220,7 @@ public class Request {
 	 * @return The same mutable message object, used for stream-lining code.
 	 */
 	public Request inject(Object object) {
-		payload.addFirst(object);
+		payload.inject(object);
 		return this;
 	}
 
@@ -82,7 +231,73 @@ public class Request {
 	 * @return The same mutable message object, used for stream-lining code.
 	 */
 	public Request append(Object object) {
-		payload.addLast(object);
+		payload.append(object);
+		return this;
+	}
+	
+	/**
+	 * Appends an int to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Request writeInt(int value) {
+		payload.writeInt(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a long to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Request writeLong(long value) {
+		payload.writeLong(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a double to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Request writeDouble(double value) {
+		payload.writeDouble(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a boolean to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Request writeBoolean(boolean value) {
+		payload.writeBoolean(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a String to the end of the payload.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Request writeString(String value) {
+		payload.writeString(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a UUID to the end of the payload.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Request writeUUID(UUID value) {
+		payload.writeUUID(value);
 		return this;
 	}
 	
@@ -90,7 +305,7 @@ public class Request {
 	 * @return True if the payload has content remaining.
 	 */
 	public boolean hasNext() {
-		return !payload.isEmpty();
+		return payload.hasNext();
 	}
 
 	/**
@@ -101,9 +316,7 @@ public class Request {
 	 * @throws EmptyMessageException If the message has an empty payload (Nothing else to read).
 	 */
 	public Object read() {
-		if(payload.isEmpty())
-			throw new RuntimeException(new EmptyMessageException());
-		return payload.remove(0);
+		return payload.read();
 	}
 
 	/**
@@ -120,32 +333,161 @@ public class Request {
 		return clazz.cast(read());
 	}
 	
+	/**
+	 * Removes and reads the first object's data from the payload as an int.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not an int.
+	 */
+	public int readInt() {
+		return payload.readInt();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a long.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a long.
+	 */
+	public long readLong() {
+		return payload.readLong();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a double.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a double.
+	 */
+	public double readDouble() {
+		return payload.readDouble();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a boolean.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a boolean.
+	 */
+	public boolean readBoolean() {
+		return payload.readBoolean();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a String.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a String.
+	 */
+	public String readString() {
+		return payload.readString();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a UUID.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a UUID.
+	 */
+	public UUID readUUID() {
+		return payload.readUUID();
+	}
+	
+	/**
+	 * Reads the first object's data from the payload without removing it.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 */
+	public Object peek() {
+		return payload.peek();
+	}
+	
+	/**
+	 * Reads the first object's data from the payload without removing it, and attempts to cast it.
+	 * 
+	 * @param <T> The class type.
+	 * @param clazz The class.
+	 * @return The data read casted to the object class.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the class could not be cast to the object.
+	 */
+	public <T> T peek(Class<T> clazz) {
+		return clazz.cast(peek());
+	}
+	
+	/**
+	 * Removes the first object from the payload without decoding it.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to skip).
+	 */
+	public void skip() {
+		payload.skip();
+	}
+	
+	/**
+	 * Removes the first objects from the payload without decoding them.
+	 * 
+	 * @param count The amount of objects to remove.
+	 * 
+	 * @throws EmptyMessageException If the payload has fewer objects (Nothing else to skip).
+	 */
+	public void skip(int count) {
+		for(int i = 0; i < count; i++)
+			payload.skip();
+	}
+	
+	/**
+	 * A replica of this request reading the same payload in place, with its own read position.
+	 * Reading either never affects the other, but this request must not be written to or released while the view is in use.
+	 * 
+	 * @return A view of this request.
+	 */
+	public Request view() {
+		Request request = new Request(carrier, payload.view(), uuid);
+		request.route = route;
+		request.routeId = routeId;
+		request.routed = routed;
+		request.stream = stream;
+		request.cacheable = cacheable;
+		return request;
+	}
+	
 	/**
 	 * @return An exact replica of this message.
 	 */
 	public Request clone() {
-		return new Request(carrier, payload, uuid);
+		Request request = new Request(carrier, payload.copy(), uuid);
+		request.route = route;
+		request.routeId = routeId;
+		request.routed = routed;
+		request.stream = stream;
+		request.cacheable = cacheable;
+		return request;
 	}
 
 	
 	/**
-	 * Get the byte array representation of this message.
+	 * Get the byte array representation of this message, encoded by {@link PipelineDefaults#CODEC}.
 	 * 
 	 * @return The byte array representation of this message.
-	 * 
-	 * @throws IOException If an I/O error occurs while writing stream header.
 	 */
 	public byte[] toByteArray() {
-		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
-			try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
-				output.writeObject(MessageType.REQUEST);
-				output.writeObject(payload);
-				output.writeObject(uuid);
-				return bytes.toByteArray();
-			}
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
+		return PipelineDefaults.CODEC.encode(this);
 	}
 	
 	/**
@@ -163,5 +505,24 @@ public class Request {
 	public CompletableFuture<Optional<Response>> send(Pipeline pipeline) {
 		return pipeline.request(this);
 	}
+	
+	/**
+	 * Sends this request.
+	 * @param pipeline The pipeline to send over.
+	 * @param timeout How long to wait for the response.
+	 * @return The response to the request, otherwise empty if timed out.
+	 */
+	public CompletableFuture<Optional<Response>> send(Pipeline pipeline, Duration timeout) {
+		return pipeline.request(this, timeout);
+	}
+	
+	/**
+	 * Sends this request, expecting a stream of responses.
+	 * @param pipeline The pipeline to send over.
+	 * @return The responses to the request, the request is sent once subscribed to.
+	 */
+	public PipelineFlow.Publisher<Response> stream(Pipeline pipeline) {
+		return pipeline.requestStream(this);
+	}
 
 }
@@ -1,15 +1,25 @@
 package dev.westernpine.pipelines.api;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.LinkedList;
 import java.util.UUID;
 
 import dev.westernpine.pipelines.lib.EmptyMessageException;
+import dev.westernpine.pipelines.lib.Payload;
+import dev.westernpine.pipelines.lib.PipelineDefaults;
+import dev.westernpine.pipelines.lib.Recycler;
+import dev.westernpine.pipelines.lib.Recycler.Leak;
 
+/**
+ * A response to a request.
+ * 
+ * A received response is owned by whoever receives it, the requester whose future it completes, or the subscriber of a stream.
+ * While {@link PipelineDefaults#RECYCLING} is enabled, received responses are pooled, and their owner should release them once read.
+ * Responses nobody receives, such as late or duplicate ones, are released by the pipeline.
+ */
 public class Response {
 	
+	private static final Recycler<Response> RECYCLER = new Recycler<>(() -> new Response(null, null), 256);
+	
 	/**
 	 * Forms a response message linked to the request.
 	 * @param request The request to form the response from.
@@ -21,7 +31,9 @@ public class Response {
 	
 	private UUID carrier;
 	private UUID uuid;
-	private LinkedList<Object> payload = new LinkedList<>();
+	private Payload payload = new Payload();
+	private boolean released;
+	private Leak leak;
 
 	/**
 	 * A generic response to be sent.
@@ -29,6 +41,17 @@ public class Response {
 	 * @param payload The payload of the response.
 	 */
 	public Response(UUID carrier, LinkedList<Object> payload, UUID uuid) {
+		this.carrier = carrier;
+		this.payload = new Payload(payload);
+		this.uuid = uuid;
+	}
+	
+	/**
+	 * A generic response to be sent.
+	 * 
+	 * @param payload The encoded payload of the response.
+	 */
+	public Response(UUID carrier, Payload payload, UUID uuid) {
 		this.carrier = carrier;
 		this.payload = payload;
 		this.uuid = uuid;
@@ -44,6 +67,40 @@ public class Response {
 		this.uuid = uuid;
 	}
 	
+	/**
+	 * Obtains a pooled response, to be released once it has been sent or read.
+	 * 
+	 * @param carrier The player carrying the response.
+	 * @param uuid The uuid of the Request.
+	 * @return An empty response.
+	 */
+	public static Response obtain(UUID carrier, UUID uuid) {
+		Response response = RECYCLER.get();
+		response.carrier = carrier;
+		response.uuid = uuid;
+		response.released = false;
+		response.leak = RECYCLER.track(response);
+		return response;
+	}
+	
+	/**
+	 * Returns this response and its buffer to the pool, it must not be used after being released.
+	 * 
+	 * @throws IllegalStateException If the response was already released.
+	 */
+	public void release() {
+		if(released)
+			throw new IllegalStateException("The response has already been released!");
+		released = true;
+		if(leak != null) {
+			leak.close();
+			leak = null;
+		}
+		carrier = null;
+		payload.reset();
+		RECYCLER.recycle(this);
+	}
+	
 	/**
 	 * @return The player carrying the message.
 	 */
@@ -64,6 +121,13 @@ public class Response {
 	 * @return A copy of the message payload at it's current state.
 	 */
 	public LinkedList<Object> getPayload() {
+		return payload.toList();
+	}
+	
+	/**
+	 * @return The encoded payload backing this message.
+	 */
+	public Payload getEncodedPayload() {
 		return payload;
 	}
 	
@@ -81,7 +145,7 @@ public class Response {
 	 * @return The same mutable message object, used for stream-lining code.
 	 */
 	public Response inject(Object object) {
-		payload.addFirst(object);
+		payload.inject(object);
 		return this;
 	}
 
@@ -92,7 +156,73 @@ public class Response {
 	 * @return The same mutable message object, used for stream-lining code.
 	 */
 	public Response append(Object object) {
-		payload.addLast(object);
+		payload.append(object);
+		return this;
+	}
+	
+	/**
+	 * Appends an int to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Response writeInt(int value) {
+		payload.writeInt(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a long to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Response writeLong(long value) {
+		payload.writeLong(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a double to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Response writeDouble(double value) {
+		payload.writeDouble(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a boolean to the end of the payload, without boxing it.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Response writeBoolean(boolean value) {
+		payload.writeBoolean(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a String to the end of the payload.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Response writeString(String value) {
+		payload.writeString(value);
+		return this;
+	}
+	
+	/**
+	 * Appends a UUID to the end of the payload.
+	 * 
+	 * @param value The value to write.
+	 * @return The same mutable message object, used for stream-lining code.
+	 */
+	public Response writeUUID(UUID value) {
+		payload.writeUUID(value);
 		return this;
 	}
 	
@@ -100,7 +230,7 @@ public class Response {
 	 * @return True if the payload has content remaining.
 	 */
 	public boolean hasNext() {
-		return !payload.isEmpty();
+		return payload.hasNext();
 	}
 
 	/**
@@ -111,9 +241,7 @@ public class Response {
 	 * @throws EmptyMessageException If the message has an empty payload (Nothing else to read).
 	 */
 	public Object read() {
-		if(payload.isEmpty())
-			throw new RuntimeException(new EmptyMessageException());
-		return payload.remove(0);
+		return payload.read();
 	}
 
 	/**
@@ -130,32 +258,139 @@ public class Response {
 		return clazz.cast(read());
 	}
 	
+	/**
+	 * Removes and reads the first object's data from the payload as an int.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not an int.
+	 */
+	public int readInt() {
+		return payload.readInt();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a long.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a long.
+	 */
+	public long readLong() {
+		return payload.readLong();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a double.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a double.
+	 */
+	public double readDouble() {
+		return payload.readDouble();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a boolean.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a boolean.
+	 */
+	public boolean readBoolean() {
+		return payload.readBoolean();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a String.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a String.
+	 */
+	public String readString() {
+		return payload.readString();
+	}
+	
+	/**
+	 * Removes and reads the first object's data from the payload as a UUID.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the first object is not a UUID.
+	 */
+	public UUID readUUID() {
+		return payload.readUUID();
+	}
+	
+	/**
+	 * Reads the first object's data from the payload without removing it.
+	 * 
+	 * @return The data read.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 */
+	public Object peek() {
+		return payload.peek();
+	}
+	
+	/**
+	 * Reads the first object's data from the payload without removing it, and attempts to cast it.
+	 * 
+	 * @param <T> The class type.
+	 * @param clazz The class.
+	 * @return The data read casted to the object class.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to read).
+	 * @throws ClassCastException If the class could not be cast to the object.
+	 */
+	public <T> T peek(Class<T> clazz) {
+		return clazz.cast(peek());
+	}
+	
+	/**
+	 * Removes the first object from the payload without decoding it.
+	 * 
+	 * @throws EmptyMessageException If the payload is empty (Nothing else to skip).
+	 */
+	public void skip() {
+		payload.skip();
+	}
+	
+	/**
+	 * Removes the first objects from the payload without decoding them.
+	 * 
+	 * @param count The amount of objects to remove.
+	 * 
+	 * @throws EmptyMessageException If the payload has fewer objects (Nothing else to skip).
+	 */
+	public void skip(int count) {
+		for(int i = 0; i < count; i++)
+			payload.skip();
+	}
+	
 	/**
 	 * @return An exact replica of this message.
 	 */
 	public Response clone() {
-		return new Response(carrier, payload, uuid);
+		return new Response(carrier, payload.copy(), uuid);
 	}
 
 	
 	/**
-	 * Get the byte array representation of this message.
+	 * Get the byte array representation of this message, encoded by {@link PipelineDefaults#CODEC}.
 	 * 
 	 * @return The byte array representation of this message.
-	 * 
-	 * @throws IOException If an I/O error occurs while writing stream header.
 	 */
 	public byte[] toByteArray() {
-		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
-			try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
-				output.writeObject(MessageType.RESPONSE);
-				output.writeObject(payload);
-				output.writeObject(uuid);
-				return bytes.toByteArray();
-			}
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
+		return PipelineDefaults.CODEC.encode(this);
 	}
 	
 	/**
@@ -0,0 +1,53 @@
+package dev.westernpine.pipelines.api;
+
+import java.util.UUID;
+
+/**
+ * Sends many responses to a single streamed request, as the requester asks for them.
+ * 
+ * The requester grants credits for the responses it is ready for, responses sent beyond them are queued until more are granted.
+ * Producers of large streams should only send while {@link #getDemand()} is above zero, and continue from {@link #onDemand(Runnable)}.
+ */
+public interface ResponseStream {
+	
+	/**
+	 * @return The UUID of the streamed request.
+	 */
+	public UUID getUuid();
+	
+	/**
+	 * @return The amount of responses the requester is ready for, that have not been sent yet.
+	 */
+	public long getDemand();
+	
+	/**
+	 * Sets a task to run every time the requester grants more credits.
+	 * It runs on the thread that received the credits.
+	 */
+	public void onDemand(Runnable task);
+	
+	/**
+	 * Sends a response to the streamed request, or queues it until the requester is ready for it.
+	 * 
+	 * @param response A response to the streamed request, such as from {@link Request#toResponse()}.
+	 */
+	public void send(Response response);
+	
+	/**
+	 * Ends the stream once every queued response has been sent.
+	 */
+	public void end();
+	
+	/**
+	 * Ends the stream straight away, discarding any queued responses, and fails it on the requester's end.
+	 * 
+	 * @param reason The reason the stream failed.
+	 */
+	public void fail(String reason);
+	
+	/**
+	 * @return True if the requester cancelled the stream, or it has ended.
+	 */
+	public boolean isClosed();
+
+}
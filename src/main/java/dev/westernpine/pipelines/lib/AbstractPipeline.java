@@ -0,0 +1,901 @@
+package dev.westernpine.pipelines.lib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import dev.westernpine.pipelines.api.PipelineFlow;
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.api.MessageType;
+import dev.westernpine.pipelines.api.Pipeline;
+import dev.westernpine.pipelines.api.Registration;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.api.ResponseStream;
+
+/**
+ * The platform independent core of a pipeline.
+ * 
+ * Decoding, listener dispatch and response correlation all happen here,
+ * leaving implementations to only move frames over their platform's plugin message channels.
+ */
+public abstract class AbstractPipeline implements Pipeline {
+	
+	private PipelineCodec codec = PipelineDefaults.CODEC;
+	
+	private ListenerRegistry<Message> messageListeners = new ListenerRegistry<>();
+	
+	private ListenerRegistry<Request> requestListeners = new ListenerRegistry<>();
+	
+	private RouteTable<Route<Message>> messageRoutes = new RouteTable<>();
+	
+	private RouteTable<Route<Request>> requestRoutes = new RouteTable<>();
+	
+	private ConcurrentHashMap<Class<?>, TypedCodec<?>> typedCodecs = new ConcurrentHashMap<>();
+	
+	private volatile Executor defaultExecutor = PipelineExecutors.DIRECT;
+	
+	private RecordingMetrics metrics = new RecordingMetrics(this::getPendingRequests);
+	
+	private PendingRequests pendingRequests = new PendingRequests(PipelineDefaults.TIMER, metrics);
+	
+	private ConcurrentHashMap<UUID, InboundStream> inboundStreams = new ConcurrentHashMap<>();
+	
+	private ConcurrentHashMap<UUID, OutboundStream> outboundStreams = new ConcurrentHashMap<>();
+	
+	private volatile OutboundBatcher batcher;
+	
+	private volatile OfflineQueue offlineQueue;
+	
+	private volatile RequestCache requestCache;
+	
+	private volatile RequestWindows requestWindows;
+	
+	private AtomicBoolean drainScheduled = new AtomicBoolean();
+	
+	private volatile CarrierSelector carrierSelector = new StickySelector();
+	
+	private volatile int fragmentSize = PipelineDefaults.FRAGMENT_SIZE;
+	
+	private AtomicInteger fragmentIds = new AtomicInteger(ThreadLocalRandom.current().nextInt());
+	
+	private Reassembler reassembler = new Reassembler(PipelineDefaults.MAX_REASSEMBLY_BYTES, Duration.ofMillis(PipelineDefaults.REASSEMBLY_TIMEOUT), PipelineDefaults.TIMER, metrics);
+	
+	/**
+	 * Sends an encoded frame over the platform's outgoing channel.
+	 * 
+	 * @param carrier The player to carry the frame.
+	 * @param frame The encoded frame.
+	 * 
+	 * @throws NoRoutablePathException If there is no connection to send the frame over.
+	 */
+	protected abstract void transmit(UUID carrier, byte[] frame);
+	
+	/**
+	 * Whether frames travel over whichever connection the carrier selector chooses, rather than the one they are addressed with.
+	 * Requests addressed by carrier then share a single request window, as the carrier they name doesn't decide where they go.
+	 * 
+	 * @return True if any connection can carry a frame, by default false.
+	 */
+	protected boolean isAnyCarrier() {
+		return false;
+	}
+	
+	/**
+	 * Checks whether a frame failed to route because the player it was addressed with left, rather than for lack of any connection.
+	 * Such frames are dropped rather than queued while offline, where they would hold back every frame queued behind them.
+	 * 
+	 * @param carrier The carrier the frame was addressed with.
+	 * @return True if the carrier is gone, by default false, for implementations that send over any connection.
+	 */
+	protected boolean isCarrierGone(UUID carrier) {
+		return false;
+	}
+	
+	/**
+	 * Chooses the connection to carry a frame, before it is fragmented, so every fragment travels over the same connection.
+	 * Implementations where any connection can carry a frame should choose one with {@link #selectCarrier(Collection, Function, int)}.
+	 * 
+	 * @param carrier The carrier the frame was addressed with.
+	 * @param frameSize The size of the frame.
+	 * @return The carrier to transmit the frame with, by default the one it was addressed with.
+	 * 
+	 * @throws NoRoutablePathException If there is no connection to send the frame over.
+	 */
+	protected UUID selectCarrier(UUID carrier, int frameSize) {
+		return carrier;
+	}
+	
+	/**
+	 * Chooses one of the online connections with the pipeline's carrier selector.
+	 * 
+	 * @param carriers Every online connection.
+	 * @param ids Reads the UUID of a connection.
+	 * @param frameSize The size of the frame.
+	 * @return The UUID of the connection to carry the frame.
+	 * 
+	 * @throws NoRoutablePathException If there are no connections.
+	 */
+	protected <T> UUID selectCarrier(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize) {
+		T carrier = carrierSelector.select(carriers, ids, frameSize);
+		if(carrier == null)
+			throw new RuntimeException(new NoRoutablePathException());
+		return ids.apply(carrier);
+	}
+	
+	/**
+	 * @return The selector choosing which connection carries a frame, on platforms where any connection can.
+	 */
+	public CarrierSelector getCarrierSelector() {
+		return this.carrierSelector;
+	}
+	
+	/**
+	 * Sets the selector choosing which connection carries a frame, on platforms where any connection can.
+	 * By default one connection carries every frame while it stays online, keeping frames in order.
+	 * {@link RoundRobinSelector}, {@link LeastRecentlyUsedSelector} and {@link LeastOutstandingBytesSelector} spread frames across connections,
+	 * but frames over different connections arrive in no particular order.
+	 */
+	public void setCarrierSelector(CarrierSelector carrierSelector) {
+		this.carrierSelector = carrierSelector;
+	}
+	
+	/**
+	 * @return The codec used to encode and decode frames for this pipeline.
+	 */
+	public PipelineCodec getCodec() {
+		return this.codec;
+	}
+	
+	/**
+	 * Sets the codec used to encode and decode frames for this pipeline.
+	 * Both ends of the pipeline must use the same codec.
+	 */
+	public void setCodec(PipelineCodec codec) {
+		this.codec = codec;
+	}
+	
+	/**
+	 * @return The executor handlers registered without their own executor are dispatched on.
+	 */
+	public Executor getDefaultExecutor() {
+		return this.defaultExecutor;
+	}
+	
+	/**
+	 * Sets the executor handlers registered without their own executor are dispatched on.
+	 * By default handlers run on the platform thread that received the message.
+	 */
+	public void setDefaultExecutor(Executor defaultExecutor) {
+		this.defaultExecutor = defaultExecutor;
+	}
+	
+	/**
+	 * Coalesces outgoing frames per carrier, sending them as a single plugin message.
+	 * Batches are flushed at the end of every tick where the platform has ticks, when full, or once the linger time has passed.
+	 * While batching, failing to find a route is only reported when the batch is flushed.
+	 * 
+	 * @param maxBytes The size a batch is flushed at, this should stay below the platform's plugin message size limit.
+	 * @param linger The longest a frame may wait in a batch, zero to only flush at the end of a tick or when full.
+	 */
+	public void enableBatching(int maxBytes, Duration linger) {
+		OutboundBatcher previous = batcher;
+		batcher = new OutboundBatcher(codec, this::write, maxBytes, linger, PipelineDefaults.TIMER);
+		if(previous != null)
+			previous.flush();
+	}
+	
+	/**
+	 * Flushes any batched frames, and sends every frame after as its own plugin message.
+	 */
+	public void disableBatching() {
+		OutboundBatcher previous = batcher;
+		batcher = null;
+		if(previous != null)
+			previous.flush();
+	}
+	
+	/**
+	 * Sends every batched frame now, and any frames queued while offline if a connection is available.
+	 * Implementations should call this at the end of every tick.
+	 */
+	public void flush() {
+		OutboundBatcher batcher = this.batcher;
+		if(batcher != null)
+			batcher.flush();
+		OfflineQueue offlineQueue = this.offlineQueue;
+		if(offlineQueue != null && !offlineQueue.isEmpty())
+			drain(offlineQueue);
+	}
+	
+	/**
+	 * Answers identical cacheable requests with one round trip, see {@link Request#setCacheable(boolean)}.
+	 * Identical requests sent while one awaits its response share that response, and responses are kept for a time.
+	 * 
+	 * @param maxEntries The most responses kept, the least recently used are evicted first.
+	 * @param timeToLive How long a response is kept.
+	 */
+	public void enableRequestCache(int maxEntries, Duration timeToLive) {
+		requestCache = new RequestCache(maxEntries, timeToLive.toNanos());
+	}
+	
+	/**
+	 * Sends every request, and forgets every cached response.
+	 */
+	public void disableRequestCache() {
+		requestCache = null;
+	}
+	
+	/**
+	 * @return The request cache, otherwise null if disabled.
+	 */
+	public RequestCache getRequestCache() {
+		return this.requestCache;
+	}
+	
+	/**
+	 * @return The windows limiting the requests awaiting a response from each destination, otherwise null if requests are never held back.
+	 */
+	public RequestWindows getRequestWindows() {
+		return this.requestWindows;
+	}
+	
+	/**
+	 * Limits the requests awaiting a response from each carrier, or each server when addressed by name,
+	 * queueing the rest until responses make room, see {@link RequestWindows#fixed(int, long)} and {@link RequestWindows#adaptive(int, int, int, long)}.
+	 * Where any connection can carry a frame, such as on servers, requests addressed by carrier share one window,
+	 * since the carrier selector rather than the carrier decides which connection they take.
+	 * Requests already queued by previous windows are still sent by them.
+	 * 
+	 * @param requestWindows The windows, otherwise null to never hold requests back.
+	 */
+	public void setRequestWindows(RequestWindows requestWindows) {
+		this.requestWindows = requestWindows;
+	}
+	
+	/**
+	 * Holds frames that fail to send for lack of a connection, instead of failing to send them,
+	 * and sends them in batches once a connection is available.
+	 * Requests sent while offline still time out on their own deadlines.
+	 * 
+	 * @param maxBytes The most bytes of frames held in memory.
+	 * @param policy What to do with a frame when the queue is full.
+	 */
+	public void enableOfflineQueue(long maxBytes, OverflowPolicy policy) {
+		enableOfflineQueue(new OfflineQueue(maxBytes, policy, null));
+	}
+	
+	/**
+	 * Holds frames that fail to send for lack of a connection, spilling those that do not fit in memory into a memory mapped file.
+	 * 
+	 * @param maxBytes The most bytes of frames held in memory.
+	 * @param policy What to do with a frame when the queue and the spill file are full.
+	 * @param spillFile The file to spill into, it is overwritten.
+	 * @param spillBytes The size of the spill file.
+	 * 
+	 * @throws IOException If the spill file could not be mapped.
+	 */
+	public void enableOfflineQueue(long maxBytes, OverflowPolicy policy, Path spillFile, int spillBytes) throws IOException {
+		enableOfflineQueue(new OfflineQueue(maxBytes, policy, new SpillFile(spillFile, spillBytes)));
+	}
+	
+	private void enableOfflineQueue(OfflineQueue queue) {
+		OfflineQueue previous = offlineQueue;
+		offlineQueue = queue;
+		if(previous != null)
+			previous.close();
+	}
+	
+	/**
+	 * Stops queueing frames while offline, discarding any still queued.
+	 */
+	public void disableOfflineQueue() {
+		OfflineQueue previous = offlineQueue;
+		offlineQueue = null;
+		if(previous != null)
+			previous.close();
+	}
+	
+	/**
+	 * @return The amount of frames queued while offline.
+	 */
+	public int getQueuedFrames() {
+		OfflineQueue offlineQueue = this.offlineQueue;
+		return offlineQueue == null ? 0 : offlineQueue.size();
+	}
+	
+	/**
+	 * @return The largest frame sent as a single plugin message.
+	 */
+	public int getFragmentSize() {
+		return this.fragmentSize;
+	}
+	
+	/**
+	 * Sets the largest frame sent as a single plugin message, larger frames are split into fragments of this size,
+	 * and reassembled by the receiving pipeline. This should stay below the platform's plugin message size limit.
+	 */
+	public void setFragmentSize(int fragmentSize) {
+		this.fragmentSize = fragmentSize;
+	}
+	
+	/**
+	 * @return The amount of requests awaiting a response.
+	 */
+	public int getPendingRequests() {
+		return pendingRequests.size();
+	}
+	
+	public PipelineMetrics getMetrics() {
+		return this.metrics;
+	}
+	
+	/**
+	 * Decodes a frame received from the platform, and dispatches it to the listeners.
+	 * The array is read in place, so it must not be modified afterwards.
+	 * 
+	 * @param carrier The player that carried the frame.
+	 * @param frame The encoded frame.
+	 */
+	public void receive(UUID carrier, byte[] frame) {
+		receive(carrier, ByteBuffer.wrap(frame));
+	}
+	
+	/**
+	 * Decodes a frame received from the platform, and dispatches it to the listeners.
+	 * Heap buffers are read in place, so their contents must not be modified afterwards.
+	 * 
+	 * @param carrier The player that carried the frame.
+	 * @param frame The encoded frame, from its position to its limit.
+	 */
+	public void receive(UUID carrier, ByteBuffer frame) {
+		metrics.received(frame.remaining());
+		read(carrier, frame);
+	}
+	
+	private void read(UUID carrier, ByteBuffer frame) {
+		try {
+			long start = System.nanoTime();
+			MessageType type = codec.typeOf(frame);
+			switch (type) {
+			case REQUEST:
+			case STREAM:
+				if(!isHeard(frame, requestRoutes, requestListeners))
+					break;
+				Request request = codec.decodeRequest(carrier, frame);
+				metrics.decoded(type, System.nanoTime() - start);
+				if(request.isStream()) {
+					OutboundStream outbound = new OutboundStream(this, carrier, request.getUuid(), Duration.ofMillis(PipelineDefaults.STREAM_IDLE_TIMEOUT), PipelineDefaults.TIMER);
+					outboundStreams.put(request.getUuid(), outbound);
+					outbound.start();
+				}
+				dispatch(request.isRouted() ? route(requestRoutes, request.getRouteId(), request::setRoute) : requestListeners.snapshot(), request, Request::view, PipelineDefaults.RECYCLING ? request::release : null);
+				break;
+			case RESPONSE:
+				Response response = codec.decodeResponse(carrier, frame);
+				metrics.decoded(type, System.nanoTime() - start);
+				if(!pendingRequests.complete(response)) {
+					InboundStream inbound = inboundStreams.get(response.getUuid());
+					// Late, duplicate or unwanted responses have no owner to release them.
+					if((inbound == null || !inbound.next(response)) && PipelineDefaults.RECYCLING)
+						response.release();
+				}
+				break;
+			case CREDIT:
+			case CANCEL:
+			case END:
+				StreamSignal signal = codec.decodeSignal(frame);
+				metrics.decoded(type, System.nanoTime() - start);
+				signal(signal);
+				break;
+			case BATCH:
+				codec.decodeBatch(frame).forEach(batched -> read(carrier, batched));
+				break;
+			case FRAGMENT:
+				ByteBuffer reassembled = reassembler.add(carrier, codec.decodeFragment(frame));
+				if(reassembled != null)
+					read(carrier, reassembled);
+				break;
+			default:
+				if(!isHeard(frame, messageRoutes, messageListeners))
+					break;
+				Message message = codec.decodeMessage(carrier, frame);
+				metrics.decoded(type, System.nanoTime() - start);
+				dispatch(message.isRouted() ? route(messageRoutes, message.getRouteId(), message::setRoute) : messageListeners.snapshot(), message, Message::view, PipelineDefaults.RECYCLING ? message::release : null);
+				break;
+			}
+		} catch (Exception e) {
+			metrics.malformed();
+			e.printStackTrace();
+		}
+	}
+	
+	private void signal(StreamSignal signal) {
+		switch (signal.getType()) {
+		case CREDIT:
+			OutboundStream outbound = outboundStreams.get(signal.getUuid());
+			if(outbound != null)
+				outbound.grant(signal.getCredits());
+			break;
+		case CANCEL:
+			OutboundStream cancelled = outboundStreams.remove(signal.getUuid());
+			if(cancelled != null)
+				cancelled.cancel();
+			break;
+		default:
+			InboundStream inbound = inboundStreams.get(signal.getUuid());
+			if(inbound != null)
+				inbound.end(signal.getError());
+			break;
+		}
+	}
+	
+	/**
+	 * Sends a signal controlling a stream of responses.
+	 */
+	void signal(UUID carrier, StreamSignal signal) {
+		long start = System.nanoTime();
+		deliver(signal.getType(), carrier, codec.encode(signal), start);
+	}
+	
+	/**
+	 * Registers the requesting end of a stream, and sends its request.
+	 */
+	void openStream(InboundStream stream, Request request) {
+		inboundStreams.put(request.getUuid(), stream);
+		try {
+			long start = System.nanoTime();
+			deliver(MessageType.STREAM, request.getCarrier(), codec.encode(request), start);
+		} catch (RuntimeException e) {
+			inboundStreams.remove(request.getUuid(), stream);
+			throw e;
+		}
+	}
+	
+	void closeStream(InboundStream stream) {
+		inboundStreams.remove(stream.getUuid(), stream);
+	}
+	
+	void closeStream(OutboundStream stream) {
+		outboundStreams.remove(stream.getUuid(), stream);
+	}
+	
+	/**
+	 * Checks a message or request frame has listeners from its header alone,
+	 * so frames nobody listens to are dropped without decoding, decompressing or pooling anything.
+	 */
+	private <T> boolean isHeard(ByteBuffer frame, RouteTable<Route<T>> routes, ListenerRegistry<T> unrouted) {
+		if(!codec.isRouted(frame))
+			return unrouted.size() > 0;
+		Route<T> route = routes.get(codec.routeOf(frame));
+		return route != null && route.getListeners().size() > 0;
+	}
+	
+	/**
+	 * Finds the listeners registered for a route, naming the received message after it.
+	 * 
+	 * @return The listeners for the route, otherwise none if the route is unknown.
+	 */
+	private <T> Listener<T>[] route(RouteTable<Route<T>> routes, int id, Consumer<String> name) {
+		Route<T> route = routes.get(id);
+		if(route == null)
+			return ListenerRegistry.none();
+		name.accept(route.getName());
+		return route.getListeners().snapshot();
+	}
+	
+	/**
+	 * Registers a listener to a route, interning the route the first time it is used.
+	 * 
+	 * @return The listener, to unregister it with.
+	 * 
+	 * @throws IllegalArgumentException If a different route already travels as the same id.
+	 */
+	private <T> Registration register(RouteTable<Route<T>> routes, String name, Listener<T> listener) {
+		synchronized (routes) {
+			int id = Route.id(name);
+			Route<T> route = routes.get(id);
+			if(route == null)
+				routes.put(id, route = new Route<>(name));
+			else if(!route.getName().equals(name))
+				throw new IllegalArgumentException("The route \"" + name + "\" collides with the route \"" + route.getName() + "\"!");
+			route.getListeners().register(listener);
+		}
+		return listener;
+	}
+	
+	/**
+	 * Runs every listener on its executor, in order of priority.
+	 * A listener that throws is reported, and never stops the listeners after it.
+	 * Every listener after the first reads its own view of the value, made before any listener runs,
+	 * so listeners on different threads never race on the payload, and none consumes elements from another.
+	 * 
+	 * @param view Makes a view of the value, reading its payload in place with its own position.
+	 * @param onComplete Run once every listener has finished, otherwise null.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> void dispatch(Listener<T>[] listeners, T value, UnaryOperator<T> view, Runnable onComplete) {
+		AtomicInteger remaining = onComplete == null ? null : new AtomicInteger(listeners.length + 1);
+		T[] views = null;
+		if(listeners.length > 1) {
+			views = (T[]) new Object[listeners.length];
+			for(int i = 1; i < listeners.length; i++)
+				views[i] = view.apply(value);
+		}
+		for(int i = 0; i < listeners.length; i++) {
+			Listener<T> listener = listeners[i];
+			T received = i == 0 ? value : views[i];
+			Executor executor = listener.getExecutor() == null ? defaultExecutor : listener.getExecutor();
+			if(executor == PipelineExecutors.DIRECT) {
+				handle(listener, received, remaining, onComplete);
+				continue;
+			}
+			try {
+				executor.execute(() -> handle(listener, received, remaining, onComplete));
+			} catch (Exception e) {
+				e.printStackTrace();
+				complete(remaining, onComplete);
+			}
+		}
+		complete(remaining, onComplete);
+	}
+	
+	private <T> void handle(Listener<T> listener, T value, AtomicInteger remaining, Runnable onComplete) {
+		try {
+			listener.getHandler().accept(value);
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			e.printStackTrace();
+		} finally {
+			complete(remaining, onComplete);
+		}
+	}
+	
+	private void complete(AtomicInteger remaining, Runnable onComplete) {
+		if(remaining != null && remaining.decrementAndGet() == 0)
+			onComplete.run();
+	}
+	
+	/**
+	 * Sends a frame with the given transmitter, fragmenting it if it is larger than the fragment size.
+	 * Used by pipelines addressing frames by something other than a carrier.
+	 * 
+	 * @throws NoRoutablePathException If the transmitter has no connection to send the frame over.
+	 */
+	void deliver(MessageType type, byte[] frame, long start, Consumer<byte[]> transmitter) {
+		metrics.encoded(type, frame.length, System.nanoTime() - start);
+		deliver(frame, transmitter);
+	}
+	
+	/**
+	 * Sends an already encoded frame with the given transmitter, fragmenting it if it is larger than the fragment size.
+	 * 
+	 * @throws NoRoutablePathException If the transmitter has no connection to send the frame over.
+	 */
+	void deliver(byte[] frame, Consumer<byte[]> transmitter) {
+		try {
+			int fragmentSize = this.fragmentSize;
+			if(frame.length <= fragmentSize) {
+				transmitter.accept(frame);
+				metrics.transmitted(frame.length);
+				return;
+			}
+			for(byte[] fragment : codec.encodeFragments(fragmentIds.getAndIncrement(), frame, fragmentSize)) {
+				transmitter.accept(fragment);
+				metrics.transmitted(fragment.length);
+			}
+		} catch (RuntimeException e) {
+			if(e.getCause() instanceof NoRoutablePathException)
+				metrics.unroutable();
+			throw e;
+		}
+	}
+	
+	private void deliver(MessageType type, UUID carrier, byte[] frame, long start) {
+		metrics.encoded(type, frame.length, System.nanoTime() - start);
+		dispatch(carrier, frame);
+	}
+	
+	private void dispatch(UUID carrier, byte[] frame) {
+		OutboundBatcher batcher = this.batcher;
+		if(batcher != null)
+			batcher.add(carrier, frame);
+		else
+			write(carrier, frame);
+	}
+	
+	private void write(UUID carrier, byte[] frame) {
+		OfflineQueue offlineQueue = this.offlineQueue;
+		if(offlineQueue != null && !offlineQueue.isEmpty()) {
+			// Queue behind older frames so they are not overtaken.
+			if(!offlineQueue.offer(carrier, frame)) {
+				metrics.unroutable();
+				throw new RuntimeException(new NoRoutablePathException());
+			}
+			if(!drain(offlineQueue))
+				scheduleDrain();
+			return;
+		}
+		try {
+			send(carrier, frame);
+		} catch (RuntimeException e) {
+			if(!(e.getCause() instanceof NoRoutablePathException))
+				throw e;
+			if(offlineQueue == null || isCarrierGone(carrier) || !offlineQueue.offer(carrier, frame))
+				throw e;
+			scheduleDrain();
+		}
+	}
+	
+	private void send(UUID carrier, byte[] frame) {
+		UUID selected;
+		try {
+			selected = selectCarrier(carrier, frame.length);
+		} catch (RuntimeException e) {
+			if(e.getCause() instanceof NoRoutablePathException)
+				metrics.unroutable();
+			throw e;
+		}
+		deliver(frame, fragment -> transmit(selected, fragment));
+	}
+	
+	/**
+	 * Retries the offline queue on the timing wheel, for platforms without ticks.
+	 */
+	private void scheduleDrain() {
+		if(drainScheduled.compareAndSet(false, true))
+			PipelineDefaults.TIMER.schedule(() -> {
+				drainScheduled.set(false);
+				OfflineQueue offlineQueue = this.offlineQueue;
+				if(offlineQueue != null && !drain(offlineQueue))
+					scheduleDrain();
+			}, PipelineDefaults.OFFLINE_RETRY_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Sends queued frames, combining consecutive frames for the same carrier into batches.
+	 * 
+	 * Batches whose carrier is gone are dropped, having been counted as unroutable, so they don't hold back the rest.
+	 * 
+	 * @return True if the queue was emptied, otherwise false if there is still no connection.
+	 */
+	private boolean drain(OfflineQueue offlineQueue) {
+		synchronized (offlineQueue) {
+			List<OfflineQueue.Frame> batch = new ArrayList<>();
+			List<byte[]> frames = new ArrayList<>();
+			OfflineQueue.Frame first;
+			while((first = offlineQueue.peek()) != null) {
+				int size = 1;
+				OfflineQueue.Frame next = first;
+				do {
+					batch.add(next);
+					frames.add(next.getFrame());
+					size += next.getFrame().length + 5;
+					offlineQueue.remove();
+				} while((next = offlineQueue.peek()) != null && Objects.equals(next.getCarrier(), first.getCarrier()) && size + next.getFrame().length + 5 <= fragmentSize);
+				try {
+					send(first.getCarrier(), frames.size() == 1 ? frames.get(0) : codec.encodeBatch(frames));
+				} catch (RuntimeException e) {
+					if(!(e.getCause() instanceof NoRoutablePathException))
+						throw e;
+					if(isCarrierGone(first.getCarrier()))
+						continue;
+					for(int i = batch.size() - 1; i >= 0; i--)
+						offlineQueue.requeue(batch.get(i));
+					return false;
+				} finally {
+					batch.clear();
+					frames.clear();
+				}
+			}
+			return true;
+		}
+	}
+	
+	public Registration onMessage(Consumer<Message> messageHandler) {
+		return onMessage(messageHandler, null);
+	}
+	
+	public Registration onMessage(Consumer<Message> messageHandler, Executor executor) {
+		return onMessage(messageHandler, executor, 0);
+	}
+	
+	public Registration onMessage(Consumer<Message> messageHandler, Executor executor, int priority) {
+		Listener<Message> listener = new Listener<>(messageHandler, executor, priority);
+		messageListeners.register(listener);
+		return listener;
+	}
+	
+	public Registration onMessage(String route, Consumer<Message> messageHandler) {
+		return onMessage(route, messageHandler, null);
+	}
+	
+	public Registration onMessage(String route, Consumer<Message> messageHandler, Executor executor) {
+		return onMessage(route, messageHandler, executor, 0);
+	}
+	
+	public Registration onMessage(String route, Consumer<Message> messageHandler, Executor executor, int priority) {
+		return register(messageRoutes, route, new Listener<>(messageHandler, executor, priority));
+	}
+	
+	public <T> Registration onMessage(Class<T> type, Consumer<T> handler) {
+		return onMessage(type, handler, null);
+	}
+	
+	public <T> Registration onMessage(Class<T> type, Consumer<T> handler, Executor executor) {
+		return onMessage(type, handler, executor, 0);
+	}
+	
+	public <T> Registration onMessage(Class<T> type, Consumer<T> handler, Executor executor, int priority) {
+		TypedCodec<T> typedCodec = typedCodec(type);
+		return onMessage(typedCodec.getRoute(), message -> handler.accept(typedCodec.read(message.getEncodedPayload().view())), executor, priority);
+	}
+	
+	public Registration onRequest(Consumer<Request> requestHandler) {
+		return onRequest(requestHandler, null);
+	}
+	
+	public Registration onRequest(Consumer<Request> requestHandler, Executor executor) {
+		return onRequest(requestHandler, executor, 0);
+	}
+	
+	public Registration onRequest(Consumer<Request> requestHandler, Executor executor, int priority) {
+		Listener<Request> listener = new Listener<>(requestHandler, executor, priority);
+		requestListeners.register(listener);
+		return listener;
+	}
+	
+	public Registration onRequest(String route, Consumer<Request> requestHandler) {
+		return onRequest(route, requestHandler, null);
+	}
+	
+	public Registration onRequest(String route, Consumer<Request> requestHandler, Executor executor) {
+		return onRequest(route, requestHandler, executor, 0);
+	}
+	
+	public Registration onRequest(String route, Consumer<Request> requestHandler, Executor executor, int priority) {
+		return register(requestRoutes, route, new Listener<>(requestHandler, executor, priority));
+	}
+	
+	public Registration handle(String route, Function<Request, ? extends CompletionStage<Response>> handler) {
+		return handle(route, handler, Integer.MAX_VALUE, Duration.ofMillis(PipelineDefaults.CACHE_TIME));
+	}
+	
+	public Registration handle(String route, Function<Request, ? extends CompletionStage<Response>> handler, int maxConcurrent, Duration timeout) {
+		return handle(route, handler, maxConcurrent, timeout, null);
+	}
+	
+	public Registration handle(String route, Function<Request, ? extends CompletionStage<Response>> handler, int maxConcurrent, Duration timeout, Executor executor) {
+		// Waiting requests start once another finishes, on the timer's or a completing thread, so never run them directly there.
+		Executor starter = executor != null ? executor : task -> (defaultExecutor == PipelineExecutors.DIRECT ? ForkJoinPool.commonPool() : defaultExecutor).execute(task);
+		return onRequest(route, new AsyncRequestHandler(this, handler, maxConcurrent, timeout.toNanos(), PipelineDefaults.TIMER, starter), executor);
+	}
+	
+	public void send(Message message) {
+		long start = System.nanoTime();
+		deliver(MessageType.MESSAGE, message.getCarrier(), codec.encode(message), start);
+	}
+	
+	public <T> void registerType(Class<T> type) {
+		typedCodec(type);
+	}
+	
+	public <T> void registerType(Class<T> type, String route) {
+		TypedCodec<?> existing = typedCodecs.putIfAbsent(type, TypedCodec.of(type, route));
+		if(existing != null && !existing.getRoute().equals(route))
+			throw new IllegalStateException(type.getName() + " is already registered on the route " + existing.getRoute() + "!");
+	}
+	
+	public void send(UUID carrier, Object value) {
+		send(carrier, value, typedCodec(value.getClass()));
+	}
+	
+	private <T> void send(UUID carrier, Object value, TypedCodec<T> typedCodec) {
+		Message message = Message.obtain(carrier);
+		try {
+			message.setRoute(typedCodec.getRoute());
+			typedCodec.write(typedCodec.getType().cast(value), message.getEncodedPayload());
+			send(message);
+		} finally {
+			message.release();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> TypedCodec<T> typedCodec(Class<T> type) {
+		return (TypedCodec<T>) typedCodecs.computeIfAbsent(type, TypedCodec::of);
+	}
+	
+	public CompletableFuture<Optional<Response>> request(Request request) {
+		return request(request, Duration.ofMillis(PipelineDefaults.CACHE_TIME));
+	}
+	
+	public CompletableFuture<Optional<Response>> request(Request request, Duration timeout) {
+		RequestCache requestCache = this.requestCache;
+		if(requestCache != null && request.isCacheable() && !request.isStream())
+			return requestCache.request(request, cacheable -> sendRequest(cacheable, timeout));
+		return sendRequest(request, timeout);
+	}
+	
+	private CompletableFuture<Optional<Response>> sendRequest(Request request, Duration timeout) {
+		UUID carrier = request.getCarrier();
+		return request(request, timeout, isAnyCarrier() ? null : carrier, frame -> dispatch(carrier, frame));
+	}
+	
+	/**
+	 * Sends a request through its destination's request window, if there are request windows.
+	 * 
+	 * @param destination Where the request is going, its window.
+	 * @param sender Sends the encoded request, now or once the window has room.
+	 * @return The response to the request, otherwise empty if timed out.
+	 */
+	CompletableFuture<Optional<Response>> request(Request request, Duration timeout, Object destination, Consumer<byte[]> sender) {
+		CompletableFuture<Optional<Response>> response = pendingRequests.register(request.getUuid(), timeout);
+		try {
+			long start = System.nanoTime();
+			byte[] frame = codec.encode(request);
+			metrics.encoded(MessageType.REQUEST, frame.length, System.nanoTime() - start);
+			RequestWindows requestWindows = this.requestWindows;
+			if(requestWindows == null)
+				sender.accept(frame);
+			else
+				requestWindows.submit(destination, frame.length, start + timeout.toNanos(), response, () -> {
+					try {
+						sender.accept(frame);
+					} catch (RuntimeException e) {
+						// Queued requests fail after this method returned, so forget them here too.
+						pendingRequests.cancel(request.getUuid());
+						throw e;
+					}
+				});
+		} catch (RuntimeException e) {
+			pendingRequests.cancel(request.getUuid());
+			throw e;
+		}
+		return response;
+	}
+	
+	public PipelineFlow.Publisher<Response> requestStream(Request request) {
+		return requestStream(request, Duration.ofMillis(PipelineDefaults.CACHE_TIME));
+	}
+	
+	public PipelineFlow.Publisher<Response> requestStream(Request request, Duration timeout) {
+		request.setStream(true);
+		return new InboundStream(this, request, timeout, PipelineDefaults.TIMER);
+	}
+	
+	public ResponseStream respondStream(Request request) {
+		if(!request.isStream())
+			throw new IllegalStateException("The request does not expect a stream of responses!");
+		OutboundStream stream = outboundStreams.get(request.getUuid());
+		if(stream == null)
+			throw new IllegalStateException("The stream of responses has already been closed!");
+		return stream;
+	}
+	
+	public void respond(Response response) {
+		long start = System.nanoTime();
+		deliver(MessageType.RESPONSE, response.getCarrier(), codec.encode(response), start);
+	}
+	
+}
@@ -0,0 +1,109 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.api.MessageType;
+import dev.westernpine.pipelines.api.ProxyPipeline;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+
+/**
+ * The platform independent core of a proxy pipeline, adding frames addressed to servers by name.
+ * 
+ * Addressed frames skip batching and the offline queue, as both group frames by carrier.
+ */
+public abstract class AbstractProxyPipeline extends AbstractPipeline implements ProxyPipeline {
+	
+	/**
+	 * Sends an encoded frame to a server, over any player connected to it.
+	 * 
+	 * @param server The name of the server.
+	 * @param frame The encoded frame.
+	 * 
+	 * @throws NoRoutablePathException If the server is unknown or has no players connected.
+	 */
+	protected abstract void transmit(String server, byte[] frame);
+	
+	public void send(String server, Message message) {
+		long start = System.nanoTime();
+		deliver(MessageType.MESSAGE, getCodec().encode(message), start, frame -> transmit(server, frame));
+	}
+	
+	public int send(Collection<String> servers, Message message) {
+		long start = System.nanoTime();
+		byte[] frame = getCodec().encode(message);
+		int sent = 0;
+		for(String server : servers) {
+			try {
+				deliver(MessageType.MESSAGE, frame, start, fragment -> transmit(server, fragment));
+				sent++;
+			} catch (RuntimeException e) {
+				if(!(e.getCause() instanceof NoRoutablePathException))
+					throw e;
+			}
+		}
+		return sent;
+	}
+	
+	public int sendAll(Message message) {
+		return send(getServers(), message);
+	}
+	
+	public CompletableFuture<Optional<Response>> request(String server, Request request) {
+		return request(server, request, Duration.ofMillis(PipelineDefaults.CACHE_TIME));
+	}
+	
+	public CompletableFuture<Optional<Response>> request(String server, Request request, Duration timeout) {
+		return request(request, timeout, server, frame -> deliver(frame, fragment -> transmit(server, fragment)));
+	}
+	
+	public CompletableFuture<List<Response>> request(Collection<String> servers, Request request) {
+		return request(servers, request, Duration.ofMillis(PipelineDefaults.CACHE_TIME));
+	}
+	
+	public CompletableFuture<List<Response>> request(Collection<String> servers, Request request, Duration timeout) {
+		List<CompletableFuture<Optional<Response>>> responses = new ArrayList<>(servers.size());
+		for(String server : servers) {
+			try {
+				responses.add(request(server, copy(request), timeout).handle((response, error) -> error == null ? response : Optional.<Response>empty()));
+			} catch (RuntimeException e) {
+				if(!(e.getCause() instanceof NoRoutablePathException))
+					throw e;
+			}
+		}
+		return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			List<Response> received = new ArrayList<>(responses.size());
+			for(CompletableFuture<Optional<Response>> response : responses)
+				response.join().ifPresent(received::add);
+			return received;
+		});
+	}
+	
+	public CompletableFuture<List<Response>> requestAll(Request request) {
+		return request(getServers(), request);
+	}
+	
+	public CompletableFuture<List<Response>> requestAll(Request request, Duration timeout) {
+		return request(getServers(), request, timeout);
+	}
+	
+	/**
+	 * Copies a request under a new UUID, so the response from each server can be told apart.
+	 */
+	private static Request copy(Request request) {
+		Request copy = new Request(request.getCarrier(), request.getEncodedPayload().copy(), UUID.randomUUID());
+		if(request.getRoute() != null)
+			copy.setRoute(request.getRoute());
+		else if(request.isRouted())
+			copy.setRouteId(request.getRouteId());
+		return copy;
+	}
+
+}
@@ -0,0 +1,189 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import dev.westernpine.pipelines.api.Pipeline;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.lib.TimingWheel.Timeout;
+
+/**
+ * Answers requests with the response their handler completes with, on whichever thread completes it.
+ * 
+ * At most a limited amount of requests are handled at once, the rest wait in order for one to finish.
+ * Waiting requests are started on the executor, rather than on the thread that finished the previous request or timed it out.
+ * A request still unanswered after the timeout, whether handling or waiting, is given up on without a response,
+ * as the requester has given up on it too.
+ */
+public class AsyncRequestHandler implements Consumer<Request> {
+	
+	private Pipeline pipeline;
+	
+	private Function<Request, ? extends CompletionStage<Response>> handler;
+	
+	private int maxConcurrent;
+	
+	private long timeout;
+	
+	private TimingWheel timer;
+	
+	private Executor executor;
+	
+	private AtomicInteger active = new AtomicInteger();
+	
+	private ConcurrentLinkedQueue<Waiting> waiting = new ConcurrentLinkedQueue<>();
+	
+	private AtomicInteger draining = new AtomicInteger();
+	
+	/**
+	 * @param pipeline The pipeline to respond over.
+	 * @param handler Completes with the response to a request, or null to not respond.
+	 * @param maxConcurrent The most requests handled at once.
+	 * @param timeout How long to wait for a response, in nanoseconds.
+	 * @param timer The timer to time requests out on.
+	 * @param executor The executor to start waiting requests on.
+	 */
+	public AsyncRequestHandler(Pipeline pipeline, Function<Request, ? extends CompletionStage<Response>> handler, int maxConcurrent, long timeout, TimingWheel timer, Executor executor) {
+		if(maxConcurrent < 1)
+			throw new IllegalArgumentException("At least one request must be handled at a time!");
+		this.pipeline = pipeline;
+		this.handler = handler;
+		this.maxConcurrent = maxConcurrent;
+		this.timeout = timeout;
+		this.timer = timer;
+		this.executor = executor;
+	}
+	
+	public void accept(Request request) {
+		// Received requests are released once every listener returns when recycling, long before an asynchronous response.
+		if(PipelineDefaults.RECYCLING)
+			request = request.clone();
+		if(waiting.isEmpty() && tryAcquire()) {
+			start(request, timeout);
+			return;
+		}
+		waiting.add(new Waiting(request, System.nanoTime()));
+		drain();
+	}
+	
+	/**
+	 * @return The amount of requests being handled.
+	 */
+	public int getActive() {
+		return active.get();
+	}
+	
+	/**
+	 * @return The amount of requests waiting for another to finish.
+	 */
+	public int getWaiting() {
+		return waiting.size();
+	}
+	
+	private boolean tryAcquire() {
+		int current;
+		do {
+			current = active.get();
+			if(current >= maxConcurrent)
+				return false;
+		} while(!active.compareAndSet(current, current + 1));
+		return true;
+	}
+	
+	private void release() {
+		active.decrementAndGet();
+		drain();
+	}
+	
+	/**
+	 * Starts waiting requests on the executor while there is room, one thread at a time,
+	 * so handlers completing synchronously never recurse through the queue.
+	 */
+	private void drain() {
+		if(draining.getAndIncrement() != 0)
+			return;
+		int missed = 1;
+		do {
+			while(!waiting.isEmpty() && tryAcquire()) {
+				Waiting next = waiting.poll();
+				long remaining = timeout - (System.nanoTime() - next.queued);
+				if(remaining <= 0) {
+					active.decrementAndGet();
+					continue;
+				}
+				try {
+					executor.execute(() -> start(next.request, remaining));
+				} catch (RejectedExecutionException e) {
+					e.printStackTrace();
+					active.decrementAndGet();
+				}
+			}
+			missed = draining.addAndGet(-missed);
+		} while(missed != 0);
+	}
+	
+	private void start(Request request, long remaining) {
+		AtomicBoolean finished = new AtomicBoolean();
+		CompletionStage<Response> stage;
+		try {
+			stage = handler.apply(request);
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			e.printStackTrace();
+			release();
+			return;
+		}
+		if(stage == null) {
+			release();
+			return;
+		}
+		Timeout expiry = timer.schedule(() -> {
+			if(!finished.compareAndSet(false, true))
+				return;
+			try {
+				stage.toCompletableFuture().cancel(false);
+			} catch (UnsupportedOperationException e) {
+				// Stages that can't be cancelled are left to finish, and their response ignored.
+			}
+			release();
+		}, remaining, TimeUnit.NANOSECONDS);
+		stage.whenComplete((response, error) -> {
+			if(!finished.compareAndSet(false, true))
+				return;
+			expiry.cancel();
+			try {
+				if(error != null)
+					error.printStackTrace();
+				else if(response != null)
+					pipeline.respond(response);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			} finally {
+				release();
+			}
+		});
+	}
+	
+	private static class Waiting {
+		
+		private Request request;
+		
+		private long queued;
+		
+		private Waiting(Request request, long queued) {
+			this.request = request;
+			this.queued = queued;
+		}
+		
+	}
+
+}
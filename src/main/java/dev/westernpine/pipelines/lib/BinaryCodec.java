@@ -0,0 +1,312 @@
+package dev.westernpine.pipelines.lib;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.api.MessageType;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+
+/**
+ * The default tag-length-value codec.
+ * 
+ * A frame is laid out as one type byte, the request UUID as two longs (requests and responses only),
+ * followed by the tagged payload elements until the end of the frame.
+ * A routed message or request sets the high bit of the type byte, and carries its route id as an int after it.
+ * A batch frame is one type byte followed by varint length prefixed frames.
+ * A streamed request is laid out as a request, with its own type. Credit, cancel and end frames are one type byte
+ * followed by the request UUID, and then the credits as a varlong for credit frames, or an optional error string for end frames.
+ * A fragment frame is one type byte followed by the frame id, frame length and fragment offset as varints, and then the fragment's bytes.
+ * Frames compressed above the compression threshold set the second highest bit of the type byte,
+ * and everything after it and the route id is replaced by the varint length of the original bytes, followed by the compressed bytes,
+ * so the route of a frame can always be read without decoding it.
+ * 
+ * Frames are encoded into a reused buffer per thread, and decoded in place from the array they arrived in.
+ * While {@link PipelineDefaults#RECYCLING} is enabled, decoded messages are obtained from their pools.
+ */
+public class BinaryCodec implements PipelineCodec {
+	
+	private static final MessageType[] TYPES = MessageType.values();
+	
+	private static final int TYPE_MASK = 0x3F;
+	
+	private static final int COMPRESSED = 0x40;
+	
+	private static final int ROUTED = 0x80;
+	
+	private static final int MAX_DECOMPRESSED_BYTES = 1 << 24;
+	
+	private static final int MAX_POOLED_BYTES = 1 << 16;
+	
+	private static final ThreadLocal<FrameWriter> WRITERS = ThreadLocal.withInitial(() -> new FrameWriter(256));
+	
+	private FrameCompressor compressor;
+	
+	private int compressionThreshold;
+	
+	/**
+	 * A codec that never compresses frames.
+	 */
+	public BinaryCodec() {
+		this(null, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * A codec compressing frames that would otherwise reach the threshold.
+	 * Smaller frames are sent as they are, paying nothing for compression.
+	 * 
+	 * @param compressor The compressor, which the other end of the pipeline must use too.
+	 * @param compressionThreshold The size in bytes a frame must reach to be compressed.
+	 */
+	public BinaryCodec(FrameCompressor compressor, int compressionThreshold) {
+		this.compressor = compressor;
+		this.compressionThreshold = compressionThreshold;
+	}
+	
+	public FrameCompressor getCompressor() {
+		return this.compressor;
+	}
+	
+	public int getCompressionThreshold() {
+		return this.compressionThreshold;
+	}
+	
+	public byte[] encode(Message message) {
+		FrameWriter writer = writer();
+		writeType(writer, MessageType.MESSAGE, message.isRouted(), message.getRouteId());
+		message.getEncodedPayload().writeTo(writer);
+		return finish(writer);
+	}
+	
+	public byte[] encode(Request request) {
+		FrameWriter writer = writer();
+		writeType(writer, request.isStream() ? MessageType.STREAM : MessageType.REQUEST, request.isRouted(), request.getRouteId());
+		writer.writeUUID(request.getUuid());
+		request.getEncodedPayload().writeTo(writer);
+		return finish(writer);
+	}
+	
+	public byte[] encode(Response response) {
+		FrameWriter writer = writer();
+		writer.writeByte(MessageType.RESPONSE.ordinal());
+		writer.writeUUID(response.getUuid());
+		response.getEncodedPayload().writeTo(writer);
+		return finish(writer);
+	}
+	
+	public byte[] encode(StreamSignal signal) {
+		FrameWriter writer = writer();
+		writer.writeByte(signal.getType().ordinal());
+		writer.writeUUID(signal.getUuid());
+		if(signal.getType() == MessageType.CREDIT)
+			writer.writeVarLong(signal.getCredits());
+		else if(signal.getType() == MessageType.END)
+			writer.writeObject(signal.getError());
+		return finish(writer);
+	}
+	
+	public byte[] encodeBatch(List<byte[]> frames) {
+		FrameWriter writer = writer();
+		writer.writeByte(MessageType.BATCH.ordinal());
+		for(byte[] frame : frames)
+			writer.writeVarInt(frame.length).writeBytes(frame, 0, frame.length);
+		return finish(writer);
+	}
+	
+	public MessageType typeOf(ByteBuffer frame) {
+		if(!frame.hasRemaining())
+			throw new RuntimeException(new MalformedFrameException());
+		int type = frame.get(frame.position()) & TYPE_MASK;
+		if(type >= TYPES.length)
+			throw new RuntimeException(new MalformedFrameException());
+		return TYPES[type];
+	}
+	
+	public Message decodeMessage(UUID carrier, ByteBuffer frame) {
+		FrameReader reader = reader(frame);
+		boolean routed = isRouted(frame);
+		int route = routed ? routeOf(frame) : 0;
+		Message message;
+		if(PipelineDefaults.RECYCLING) {
+			message = Message.obtain(carrier);
+			message.getEncodedPayload().wrap(reader.buffer(), reader.position(), reader.remaining());
+		} else {
+			message = new Message(carrier, readPayload(reader));
+		}
+		if(routed)
+			message.setRouteId(route);
+		return message;
+	}
+	
+	public Request decodeRequest(UUID carrier, ByteBuffer frame) {
+		FrameReader reader = reader(frame);
+		boolean routed = isRouted(frame);
+		int route = routed ? routeOf(frame) : 0;
+		UUID uuid = reader.readUUID();
+		Request request;
+		if(PipelineDefaults.RECYCLING) {
+			request = Request.obtain(carrier, uuid);
+			request.getEncodedPayload().wrap(reader.buffer(), reader.position(), reader.remaining());
+		} else {
+			request = new Request(carrier, readPayload(reader), uuid);
+		}
+		if(routed)
+			request.setRouteId(route);
+		request.setStream(typeOf(frame) == MessageType.STREAM);
+		return request;
+	}
+	
+	public Response decodeResponse(UUID carrier, ByteBuffer frame) {
+		FrameReader reader = reader(frame);
+		UUID uuid = reader.readUUID();
+		if(!PipelineDefaults.RECYCLING)
+			return new Response(carrier, readPayload(reader), uuid);
+		Response response = Response.obtain(carrier, uuid);
+		response.getEncodedPayload().wrap(reader.buffer(), reader.position(), reader.remaining());
+		return response;
+	}
+	
+	public StreamSignal decodeSignal(ByteBuffer frame) {
+		MessageType type = typeOf(frame);
+		FrameReader reader = reader(frame);
+		UUID uuid = reader.readUUID();
+		switch (type) {
+		case CREDIT:
+			return StreamSignal.credit(uuid, reader.readVarLong());
+		case CANCEL:
+			return StreamSignal.cancel(uuid);
+		case END:
+			Object error = reader.readObject();
+			if(error != null && !(error instanceof String))
+				throw new RuntimeException(new MalformedFrameException());
+			return StreamSignal.end(uuid, (String) error);
+		default:
+			throw new RuntimeException(new MalformedFrameException());
+		}
+	}
+	
+	public List<ByteBuffer> decodeBatch(ByteBuffer frame) {
+		FrameReader reader = reader(frame);
+		List<ByteBuffer> frames = new ArrayList<>();
+		while(reader.hasRemaining()) {
+			int length = reader.readVarInt();
+			if(length < 0 || length > reader.remaining())
+				throw new RuntimeException(new MalformedFrameException());
+			frames.add(ByteBuffer.wrap(reader.buffer(), reader.position(), length));
+			reader.skip(length);
+		}
+		return frames;
+	}
+	
+	public List<byte[]> encodeFragments(int id, byte[] frame, int maxBytes) {
+		List<byte[]> fragments = new ArrayList<>();
+		FrameWriter header = new FrameWriter(16);
+		int offset = 0;
+		while(offset < frame.length) {
+			header.reset();
+			header.writeByte(MessageType.FRAGMENT.ordinal()).writeVarInt(id).writeVarInt(frame.length).writeVarInt(offset);
+			int length = Math.min(frame.length - offset, maxBytes - header.size());
+			if(length <= 0)
+				throw new IllegalArgumentException("Fragments of " + maxBytes + " bytes are too small to carry any data.");
+			byte[] fragment = new byte[header.size() + length];
+			System.arraycopy(header.buffer(), 0, fragment, 0, header.size());
+			System.arraycopy(frame, offset, fragment, header.size(), length);
+			fragments.add(fragment);
+			offset += length;
+		}
+		return fragments;
+	}
+	
+	public Fragment decodeFragment(ByteBuffer frame) {
+		FrameReader reader = reader(frame);
+		int id = reader.readVarInt();
+		int length = reader.readVarInt();
+		int offset = reader.readVarInt();
+		if(length < 0 || offset < 0 || offset > length)
+			throw new RuntimeException(new MalformedFrameException());
+		return new Fragment(id, length, offset, ByteBuffer.wrap(reader.buffer(), reader.position(), reader.remaining()));
+	}
+	
+	private void writeType(FrameWriter writer, MessageType type, boolean routed, int route) {
+		writer.writeByte(routed ? type.ordinal() | ROUTED : type.ordinal());
+		if(routed)
+			writer.writeInt(route);
+	}
+	
+	public boolean isRouted(ByteBuffer frame) {
+		return (frame.get(frame.position()) & ROUTED) != 0;
+	}
+	
+	public int routeOf(ByteBuffer frame) {
+		if(frame.remaining() < 5)
+			throw new RuntimeException(new MalformedFrameException());
+		return frame.getInt(frame.position() + 1);
+	}
+	
+	private FrameWriter writer() {
+		FrameWriter writer = WRITERS.get();
+		writer.reset();
+		return writer;
+	}
+	
+	private byte[] finish(FrameWriter writer) {
+		byte[] frame = compressor != null && writer.size() >= compressionThreshold ? compress(writer) : writer.toByteArray();
+		if(writer.buffer().length > MAX_POOLED_BYTES)
+			WRITERS.remove();
+		return frame;
+	}
+	
+	/**
+	 * Compresses everything after the type byte and route id, unless that would not make the frame smaller.
+	 */
+	private byte[] compress(FrameWriter writer) {
+		byte[] buffer = writer.buffer();
+		int start = (buffer[0] & ROUTED) != 0 ? 5 : 1;
+		int length = writer.size() - start;
+		byte[] compressed = compressor.compress(buffer, start, length);
+		FrameWriter header = new FrameWriter(10);
+		header.writeByte(buffer[0] | COMPRESSED).writeBytes(buffer, 1, start - 1).writeVarInt(length);
+		if(header.size() + compressed.length >= writer.size())
+			return writer.toByteArray();
+		byte[] frame = new byte[header.size() + compressed.length];
+		System.arraycopy(header.buffer(), 0, frame, 0, header.size());
+		System.arraycopy(compressed, 0, frame, header.size(), compressed.length);
+		return frame;
+	}
+	
+	/**
+	 * Reads a frame in place when it is backed by an array, skipping the type byte and route id.
+	 * Compressed frames are decompressed into a new array first.
+	 */
+	private FrameReader reader(ByteBuffer frame) {
+		FrameReader reader;
+		if(frame.hasArray()) {
+			reader = new FrameReader(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+		} else {
+			reader = new FrameReader(copy(frame));
+		}
+		byte type = reader.readByte();
+		if((type & ROUTED) != 0)
+			reader.skip(4);
+		if((type & COMPRESSED) == 0)
+			return reader;
+		int length = reader.readVarInt();
+		if(compressor == null || length < 0 || length > MAX_DECOMPRESSED_BYTES)
+			throw new RuntimeException(new MalformedFrameException());
+		return new FrameReader(compressor.decompress(reader.buffer(), reader.position(), reader.remaining(), length));
+	}
+	
+	private byte[] copy(ByteBuffer frame) {
+		byte[] bytes = new byte[frame.remaining()];
+		frame.duplicate().get(bytes);
+		return bytes;
+	}
+	
+	private Payload readPayload(FrameReader reader) {
+		return new Payload(reader.buffer(), reader.position(), reader.remaining());
+	}
+
+}
@@ -0,0 +1,73 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * What has been sent over a single connection.
+ * 
+ * Plugin messages are sent asynchronously with no acknowledgement, so the bytes still in flight are estimated
+ * as the bytes sent, decaying with a half life, as the connection works through them.
+ */
+public class CarrierLoad {
+	
+	private final double halfLifeNanos;
+	
+	private long frames;
+	
+	private long bytes;
+	
+	private double outstanding;
+	
+	private long lastUsed;
+	
+	/**
+	 * @param halfLifeNanos How long it takes for half of the bytes sent to no longer count as in flight.
+	 */
+	public CarrierLoad(long halfLifeNanos) {
+		this.halfLifeNanos = Math.max(halfLifeNanos, 1);
+	}
+	
+	/**
+	 * Accounts a frame sent over the connection.
+	 */
+	public synchronized void record(int frameSize, long now) {
+		outstanding = decay(now) + frameSize;
+		frames++;
+		bytes += frameSize;
+		lastUsed = now;
+	}
+	
+	/**
+	 * @param now The current {@link System#nanoTime()}.
+	 * @return The estimated bytes still in flight.
+	 */
+	public synchronized double getOutstanding(long now) {
+		return decay(now);
+	}
+	
+	/**
+	 * @return When a frame was last sent over the connection, in {@link System#nanoTime()}, otherwise zero.
+	 */
+	public synchronized long getLastUsed() {
+		return this.lastUsed;
+	}
+	
+	/**
+	 * @return The amount of frames sent over the connection.
+	 */
+	public synchronized long getFrames() {
+		return this.frames;
+	}
+	
+	/**
+	 * @return The amount of bytes sent over the connection.
+	 */
+	public synchronized long getBytes() {
+		return this.bytes;
+	}
+	
+	private double decay(long now) {
+		if(outstanding == 0)
+			return 0;
+		return outstanding * Math.pow(0.5, (now - lastUsed) / halfLifeNanos);
+	}
+
+}
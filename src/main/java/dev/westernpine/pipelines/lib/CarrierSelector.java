@@ -0,0 +1,24 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Chooses which online connection carries a frame, when any of them can.
+ * 
+ * Selectors are shared between threads, so they must be thread safe.
+ */
+public interface CarrierSelector {
+	
+	/**
+	 * Chooses a connection, and accounts the frame to it.
+	 * 
+	 * @param carriers Every online connection.
+	 * @param ids Reads the UUID of a connection.
+	 * @param frameSize The size of the frame being sent.
+	 * @return The connection to send the frame over, otherwise null if there are none.
+	 */
+	public <T> T select(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize);
+
+}
@@ -0,0 +1,67 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses frames with raw deflate, using a reused Deflater and Inflater per thread.
+ * 
+ * Slower than {@link Lz4Compressor}, but compresses further, suiting connections short on bandwidth.
+ */
+public class DeflateCompressor implements FrameCompressor {
+	
+	private final ThreadLocal<Deflater> deflaters;
+	
+	private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+	
+	/**
+	 * Compresses frames at the fastest level.
+	 */
+	public DeflateCompressor() {
+		this(Deflater.BEST_SPEED);
+	}
+	
+	/**
+	 * @param level The compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+	 */
+	public DeflateCompressor(int level) {
+		this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+	}
+	
+	public byte[] compress(byte[] source, int offset, int length) {
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+		deflater.setInput(source, offset, length);
+		deflater.finish();
+		byte[] compressed = new byte[length + (length >>> 4) + 64];
+		int size = 0;
+		while(!deflater.finished()) {
+			if(size == compressed.length)
+				compressed = Arrays.copyOf(compressed, compressed.length << 1);
+			size += deflater.deflate(compressed, size, compressed.length - size);
+		}
+		return Arrays.copyOf(compressed, size);
+	}
+	
+	public byte[] decompress(byte[] source, int offset, int length, int originalLength) {
+		Inflater inflater = inflaters.get();
+		inflater.reset();
+		inflater.setInput(source, offset, length);
+		byte[] decompressed = new byte[originalLength];
+		int size = 0;
+		try {
+			while(size < originalLength) {
+				int inflated = inflater.inflate(decompressed, size, originalLength - size);
+				if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflater.finished()))
+					throw new RuntimeException(new MalformedFrameException());
+				size += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new RuntimeException(new MalformedFrameException());
+		}
+		return decompressed;
+	}
+
+}
@@ -0,0 +1,47 @@
+package dev.westernpine.pipelines.lib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A piece of a frame too large to be sent as a single plugin message.
+ */
+public class Fragment {
+	
+	private int id;
+	
+	private int length;
+	
+	private int offset;
+	
+	private ByteBuffer data;
+	
+	/**
+	 * @param id The id of the frame, unique to the sending pipeline.
+	 * @param length The length of the whole frame.
+	 * @param offset Where in the frame the data belongs.
+	 * @param data The piece of the frame.
+	 */
+	public Fragment(int id, int length, int offset, ByteBuffer data) {
+		this.id = id;
+		this.length = length;
+		this.offset = offset;
+		this.data = data;
+	}
+	
+	public int getId() {
+		return this.id;
+	}
+	
+	public int getLength() {
+		return this.length;
+	}
+	
+	public int getOffset() {
+		return this.offset;
+	}
+	
+	public ByteBuffer getData() {
+		return this.data;
+	}
+
+}
@@ -0,0 +1,29 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * Compresses the body of large frames, both ends of a pipeline must use the same compressor.
+ * 
+ * Implementations are shared between threads, so they must be thread safe.
+ */
+public interface FrameCompressor {
+	
+	/**
+	 * @param source The bytes to compress.
+	 * @param offset The offset of the first byte.
+	 * @param length The amount of bytes.
+	 * @return The compressed bytes.
+	 */
+	public byte[] compress(byte[] source, int offset, int length);
+	
+	/**
+	 * @param source The compressed bytes.
+	 * @param offset The offset of the first byte.
+	 * @param length The amount of compressed bytes.
+	 * @param originalLength The amount of bytes before compression.
+	 * @return The decompressed bytes.
+	 * 
+	 * @throws MalformedFrameException If the bytes do not decompress to exactly the original length.
+	 */
+	public byte[] decompress(byte[] source, int offset, int length, int originalLength);
+
+}
@@ -0,0 +1,242 @@
+package dev.westernpine.pipelines.lib;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+public class FrameReader {
+	
+	private byte[] buffer;
+	
+	private int position;
+	
+	private int limit;
+	
+	/**
+	 * A reader over an encoded frame.
+	 * 
+	 * @param buffer The encoded frame.
+	 */
+	public FrameReader(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+	
+	/**
+	 * A reader over a slice of an encoded frame.
+	 * No bytes are copied, the slice is read in place.
+	 * 
+	 * @param buffer The array holding the frame.
+	 * @param offset The index of the first byte of the frame.
+	 * @param length The length of the frame.
+	 */
+	public FrameReader(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+	
+	/**
+	 * Points this reader at another slice, so one reader can be reused.
+	 */
+	void wrap(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+	
+	byte[] buffer() {
+		return this.buffer;
+	}
+	
+	/**
+	 * @return The index of the next byte to be read.
+	 */
+	public int position() {
+		return this.position;
+	}
+	
+	/**
+	 * @return True if the frame has bytes remaining.
+	 */
+	public boolean hasRemaining() {
+		return position < limit;
+	}
+	
+	/**
+	 * @return The amount of bytes remaining.
+	 */
+	public int remaining() {
+		return limit - position;
+	}
+	
+	private void require(int length) {
+		if(length < 0 || limit - position < length)
+			throw new RuntimeException(new MalformedFrameException());
+	}
+	
+	public byte readByte() {
+		require(1);
+		return buffer[position++];
+	}
+	
+	public void skip(int length) {
+		require(length);
+		position += length;
+	}
+	
+	public byte[] readBytes(int length) {
+		require(length);
+		byte[] bytes = new byte[length];
+		System.arraycopy(buffer, position, bytes, 0, length);
+		position += length;
+		return bytes;
+	}
+	
+	public int readInt() {
+		require(4);
+		return ((buffer[position++] & 0xFF) << 24)
+				| ((buffer[position++] & 0xFF) << 16)
+				| ((buffer[position++] & 0xFF) << 8)
+				| (buffer[position++] & 0xFF);
+	}
+	
+	public long readLong() {
+		return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+	}
+	
+	public int readVarInt() {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7) {
+			byte b = readByte();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0)
+				return value;
+		}
+		throw new RuntimeException(new MalformedFrameException());
+	}
+	
+	public long readVarLong() {
+		long value = 0;
+		for(int shift = 0; shift < 70; shift += 7) {
+			byte b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if(b >= 0)
+				return value;
+		}
+		throw new RuntimeException(new MalformedFrameException());
+	}
+	
+	public UUID readUUID() {
+		return new UUID(readLong(), readLong());
+	}
+	
+	public String readString() {
+		int length = readVarInt();
+		require(length);
+		String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return value;
+	}
+	
+	/**
+	 * Reads a tagged payload element written by {@link FrameWriter#writeObject(Object)}.
+	 * 
+	 * @return The element read.
+	 * 
+	 * @throws MalformedFrameException If the element could not be decoded.
+	 */
+	public Object readObject() {
+		byte tag = readByte();
+		switch (tag) {
+		case FrameWriter.TAG_NULL:
+			return null;
+		case FrameWriter.TAG_FALSE:
+			return false;
+		case FrameWriter.TAG_TRUE:
+			return true;
+		case FrameWriter.TAG_BYTE:
+			return readByte();
+		case FrameWriter.TAG_SHORT:
+			return (short) unZigZag(readVarInt());
+		case FrameWriter.TAG_CHAR:
+			return (char) readVarInt();
+		case FrameWriter.TAG_INT:
+			return unZigZag(readVarInt());
+		case FrameWriter.TAG_LONG:
+			return unZigZag(readVarLong());
+		case FrameWriter.TAG_FLOAT:
+			return Float.intBitsToFloat(readInt());
+		case FrameWriter.TAG_DOUBLE:
+			return Double.longBitsToDouble(readLong());
+		case FrameWriter.TAG_STRING:
+			return readString();
+		case FrameWriter.TAG_BYTES:
+			return readBytes(readVarInt());
+		case FrameWriter.TAG_UUID:
+			return readUUID();
+		case FrameWriter.TAG_SERIALIZED:
+			int length = readVarInt();
+			require(length);
+			try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(buffer, position, length))) {
+				position += length;
+				return input.readObject();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		default:
+			throw new RuntimeException(new MalformedFrameException());
+		}
+	}
+	
+	/**
+	 * Skips a tagged payload element written by {@link FrameWriter#writeObject(Object)}, without decoding it.
+	 * 
+	 * @throws MalformedFrameException If the element could not be skipped.
+	 */
+	public void skipObject() {
+		byte tag = readByte();
+		switch (tag) {
+		case FrameWriter.TAG_NULL:
+		case FrameWriter.TAG_FALSE:
+		case FrameWriter.TAG_TRUE:
+			return;
+		case FrameWriter.TAG_BYTE:
+			skip(1);
+			return;
+		case FrameWriter.TAG_SHORT:
+		case FrameWriter.TAG_CHAR:
+		case FrameWriter.TAG_INT:
+			readVarInt();
+			return;
+		case FrameWriter.TAG_LONG:
+			readVarLong();
+			return;
+		case FrameWriter.TAG_FLOAT:
+			skip(4);
+			return;
+		case FrameWriter.TAG_DOUBLE:
+			skip(8);
+			return;
+		case FrameWriter.TAG_UUID:
+			skip(16);
+			return;
+		case FrameWriter.TAG_STRING:
+		case FrameWriter.TAG_BYTES:
+		case FrameWriter.TAG_SERIALIZED:
+			skip(readVarInt());
+			return;
+		default:
+			throw new RuntimeException(new MalformedFrameException());
+		}
+	}
+	
+	static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
@@ -0,0 +1,203 @@
+package dev.westernpine.pipelines.lib;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+public class FrameWriter {
+	
+	static final byte TAG_NULL = 0;
+	static final byte TAG_FALSE = 1;
+	static final byte TAG_TRUE = 2;
+	static final byte TAG_BYTE = 3;
+	static final byte TAG_SHORT = 4;
+	static final byte TAG_CHAR = 5;
+	static final byte TAG_INT = 6;
+	static final byte TAG_LONG = 7;
+	static final byte TAG_FLOAT = 8;
+	static final byte TAG_DOUBLE = 9;
+	static final byte TAG_STRING = 10;
+	static final byte TAG_BYTES = 11;
+	static final byte TAG_UUID = 12;
+	static final byte TAG_SERIALIZED = 13;
+	
+	private byte[] buffer;
+	
+	private int size;
+	
+	/**
+	 * A growable buffer to write frames into.
+	 */
+	public FrameWriter() {
+		this(64);
+	}
+	
+	/**
+	 * A growable buffer to write frames into.
+	 * 
+	 * @param capacity The initial capacity of the buffer.
+	 */
+	public FrameWriter(int capacity) {
+		this.buffer = new byte[Math.max(capacity, 16)];
+	}
+	
+	/**
+	 * @return The amount of bytes written.
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Discards everything written, keeping the buffer for reuse.
+	 */
+	public void reset() {
+		this.size = 0;
+	}
+	
+	/**
+	 * @return A copy of the bytes written.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+	
+	byte[] buffer() {
+		return this.buffer;
+	}
+	
+	/**
+	 * Inserts bytes at an index, shifting everything after it back.
+	 */
+	void insert(int index, byte[] bytes, int offset, int length) {
+		ensure(length);
+		System.arraycopy(buffer, index, buffer, index + length, size - index);
+		System.arraycopy(bytes, offset, buffer, index, length);
+		size += length;
+	}
+	
+	private void ensure(int extra) {
+		if(size + extra > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + extra));
+	}
+	
+	public FrameWriter writeByte(int value) {
+		ensure(1);
+		buffer[size++] = (byte) value;
+		return this;
+	}
+	
+	public FrameWriter writeBytes(byte[] bytes, int offset, int length) {
+		ensure(length);
+		System.arraycopy(bytes, offset, buffer, size, length);
+		size += length;
+		return this;
+	}
+	
+	public FrameWriter writeInt(int value) {
+		ensure(4);
+		buffer[size++] = (byte) (value >>> 24);
+		buffer[size++] = (byte) (value >>> 16);
+		buffer[size++] = (byte) (value >>> 8);
+		buffer[size++] = (byte) value;
+		return this;
+	}
+	
+	public FrameWriter writeLong(long value) {
+		writeInt((int) (value >>> 32));
+		return writeInt((int) value);
+	}
+	
+	/**
+	 * Writes an unsigned variable length integer, 7 bits per byte.
+	 */
+	public FrameWriter writeVarInt(int value) {
+		ensure(5);
+		while((value & ~0x7F) != 0) {
+			buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[size++] = (byte) value;
+		return this;
+	}
+	
+	/**
+	 * Writes an unsigned variable length long, 7 bits per byte.
+	 */
+	public FrameWriter writeVarLong(long value) {
+		ensure(10);
+		while((value & ~0x7FL) != 0) {
+			buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[size++] = (byte) value;
+		return this;
+	}
+	
+	public FrameWriter writeUUID(UUID uuid) {
+		writeLong(uuid.getMostSignificantBits());
+		return writeLong(uuid.getLeastSignificantBits());
+	}
+	
+	public FrameWriter writeString(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		return writeBytes(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Writes a tagged payload element.
+	 * Common types are written in a compact form, any other object falls back to java serialization.
+	 * 
+	 * @param object The object to write.
+	 * @return The same writer, used for stream-lining code.
+	 */
+	public FrameWriter writeObject(Object object) {
+		if(object == null)
+			return writeByte(TAG_NULL);
+		if(object instanceof String)
+			return writeByte(TAG_STRING).writeString((String) object);
+		if(object instanceof Integer)
+			return writeByte(TAG_INT).writeVarInt(zigZag((Integer) object));
+		if(object instanceof Long)
+			return writeByte(TAG_LONG).writeVarLong(zigZag((Long) object));
+		if(object instanceof Boolean)
+			return writeByte((Boolean) object ? TAG_TRUE : TAG_FALSE);
+		if(object instanceof UUID)
+			return writeByte(TAG_UUID).writeUUID((UUID) object);
+		if(object instanceof Double)
+			return writeByte(TAG_DOUBLE).writeLong(Double.doubleToRawLongBits((Double) object));
+		if(object instanceof Float)
+			return writeByte(TAG_FLOAT).writeInt(Float.floatToRawIntBits((Float) object));
+		if(object instanceof Byte)
+			return writeByte(TAG_BYTE).writeByte((Byte) object);
+		if(object instanceof Short)
+			return writeByte(TAG_SHORT).writeVarInt(zigZag((Short) object));
+		if(object instanceof Character)
+			return writeByte(TAG_CHAR).writeVarInt((Character) object);
+		if(object instanceof byte[]) {
+			byte[] bytes = (byte[]) object;
+			return writeByte(TAG_BYTES).writeVarInt(bytes.length).writeBytes(bytes, 0, bytes.length);
+		}
+		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
+			try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+				output.writeObject(object);
+			}
+			byte[] serialized = bytes.toByteArray();
+			return writeByte(TAG_SERIALIZED).writeVarInt(serialized.length).writeBytes(serialized, 0, serialized.length);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+	
+	static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+}
@@ -0,0 +1,107 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of non negative values, with a bounded relative error.
+ * 
+ * Like an HDR histogram, values are bucketed by their power of two and then linearly within it,
+ * so every value from nanoseconds to hours is recorded in a fixed 15KB of counters,
+ * and any percentile read back is within about 3% of the value recorded.
+ */
+public class Histogram {
+	
+	private static final int SUB_BUCKET_BITS = 5;
+	
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	private static final int BUCKETS = (65 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	
+	private final LongAdder count = new LongAdder();
+	
+	private final LongAdder total = new LongAdder();
+	
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	
+	/**
+	 * Records a value, negative values are recorded as zero.
+	 */
+	public void record(long value) {
+		value = Math.max(value, 0);
+		counts.incrementAndGet(indexOf(value));
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+	
+	/**
+	 * @return The amount of values recorded.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * @return The sum of every value recorded.
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+	
+	/**
+	 * @return The largest value recorded, otherwise zero.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * @return The mean of the values recorded, otherwise zero.
+	 */
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getTotal() / count;
+	}
+	
+	/**
+	 * @param percentile The percentile, from 0 to 100.
+	 * @return The value at the percentile, otherwise zero if nothing has been recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for(int i = 0; i < BUCKETS; i++)
+			count += snapshot[i] = counts.get(i);
+		if(count == 0)
+			return 0;
+		long rank = Math.max((long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * count), 1);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if(seen >= rank)
+				return Math.min(highestValueOf(i), getMax());
+		}
+		return getMax();
+	}
+	
+	private static int indexOf(long value) {
+		if(value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+	
+	private static long highestValueOf(int index) {
+		if(index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
@@ -0,0 +1,224 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import dev.westernpine.pipelines.api.PipelineFlow;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.lib.TimingWheel.Timeout;
+
+/**
+ * The requesting end of a stream of responses, publishing them to a single subscriber.
+ * 
+ * The request is sent when the subscriber subscribes, and every request for more responses is sent to the responder as credits.
+ * Demand requested from within {@link PipelineFlow.Subscriber#onSubscribe(PipelineFlow.Subscription)} is sent right after the request.
+ */
+public class InboundStream implements PipelineFlow.Publisher<Response>, PipelineFlow.Subscription {
+	
+	private AbstractPipeline pipeline;
+	
+	private Request request;
+	
+	private long timeoutNanos;
+	
+	private TimingWheel timer;
+	
+	private AtomicBoolean subscribed = new AtomicBoolean();
+	
+	private PipelineFlow.Subscriber<? super Response> subscriber;
+	
+	private final Object signals = new Object();
+	
+	private long demand;
+	
+	private boolean started;
+	
+	private boolean closed;
+	
+	private boolean terminated;
+	
+	private Timeout timeout;
+	
+	/**
+	 * @param pipeline The pipeline to send the request and credits over.
+	 * @param request The streamed request.
+	 * @param timeout How long to wait for the next response while responses are requested.
+	 * @param timer The timing wheel to time out on.
+	 */
+	public InboundStream(AbstractPipeline pipeline, Request request, Duration timeout, TimingWheel timer) {
+		this.pipeline = pipeline;
+		this.request = request;
+		this.timeoutNanos = timeout.toNanos();
+		this.timer = timer;
+	}
+	
+	/**
+	 * @return The UUID of the streamed request.
+	 */
+	public UUID getUuid() {
+		return request.getUuid();
+	}
+	
+	public void subscribe(PipelineFlow.Subscriber<? super Response> subscriber) {
+		if(!subscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new PipelineFlow.Subscription() {
+				public void request(long n) {}
+				public void cancel() {}
+			});
+			subscriber.onError(new IllegalStateException("A stream of responses can only be subscribed to once!"));
+			return;
+		}
+		this.subscriber = subscriber;
+		subscriber.onSubscribe(this);
+		synchronized (this) {
+			if(closed)
+				return;
+		}
+		try {
+			pipeline.openStream(this, request);
+		} catch (RuntimeException e) {
+			fail(e);
+			return;
+		}
+		long granted;
+		synchronized (this) {
+			if(closed)
+				return;
+			started = true;
+			granted = demand;
+			if(granted > 0)
+				schedule();
+		}
+		if(granted > 0)
+			credit(granted);
+	}
+	
+	public void request(long n) {
+		if(n <= 0) {
+			cancel();
+			fail(new IllegalArgumentException("The amount of responses requested must be positive."));
+			return;
+		}
+		synchronized (this) {
+			if(closed)
+				return;
+			boolean idle = demand == 0;
+			demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+			if(!started)
+				return;
+			if(idle)
+				schedule();
+		}
+		credit(n);
+	}
+	
+	public void cancel() {
+		if(!close())
+			return;
+		try {
+			pipeline.signal(request.getCarrier(), StreamSignal.cancel(getUuid()));
+		} catch (RuntimeException e) {}
+	}
+	
+	/**
+	 * Publishes a response received.
+	 * 
+	 * @return True if the subscriber took the response, rather than the stream being closed.
+	 */
+	boolean next(Response response) {
+		synchronized (this) {
+			if(closed)
+				return false;
+			if(demand > 0 && demand != Long.MAX_VALUE)
+				demand--;
+			if(timeout != null)
+				timeout.cancel();
+			timeout = null;
+			if(demand > 0)
+				schedule();
+		}
+		synchronized (signals) {
+			if(terminated)
+				return false;
+			try {
+				subscriber.onNext(response);
+			} catch (Exception e) {
+				e.printStackTrace();
+				cancel();
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * Completes the stream, or fails it if the responder failed.
+	 * 
+	 * @param error Why the stream failed, otherwise null.
+	 */
+	void end(String error) {
+		if(!close())
+			return;
+		terminate(error == null ? null : new StreamFailedException(error));
+	}
+	
+	private void credit(long n) {
+		try {
+			pipeline.signal(request.getCarrier(), StreamSignal.credit(getUuid(), n));
+		} catch (RuntimeException e) {
+			fail(e);
+		}
+	}
+	
+	private void schedule() {
+		timeout = timer.schedule(this::expire, timeoutNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	private void expire() {
+		if(!close())
+			return;
+		try {
+			pipeline.signal(request.getCarrier(), StreamSignal.cancel(getUuid()));
+		} catch (RuntimeException e) {}
+		terminate(new StreamFailedException("No response arrived in time."));
+	}
+	
+	private void fail(Throwable throwable) {
+		close();
+		terminate(throwable);
+	}
+	
+	/**
+	 * Signals the subscriber that the stream completed, or failed if there is a throwable, only once.
+	 */
+	private void terminate(Throwable throwable) {
+		synchronized (signals) {
+			if(terminated)
+				return;
+			terminated = true;
+			if(throwable == null)
+				subscriber.onComplete();
+			else
+				subscriber.onError(throwable);
+		}
+	}
+	
+	/**
+	 * @return True if this call closed the stream.
+	 */
+	private boolean close() {
+		synchronized (this) {
+			if(closed)
+				return false;
+			closed = true;
+			if(timeout != null)
+				timeout.cancel();
+			timeout = null;
+		}
+		pipeline.closeStream(this);
+		return true;
+	}
+
+}
@@ -0,0 +1,166 @@
+package dev.westernpine.pipelines.lib;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import dev.westernpine.pipelines.api.MessageType;
+
+/**
+ * Publishes the metrics of pipelines as MXBeans, under "dev.westernpine.pipelines:type=Pipeline,name=...".
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+	
+	private MBeanServer server;
+	
+	public JmxMetricsExporter() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+	
+	public JmxMetricsExporter(MBeanServer server) {
+		this.server = server;
+	}
+	
+	public void register(String name, PipelineMetrics metrics) {
+		try {
+			ObjectName objectName = objectName(name);
+			if(server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+			server.registerMBean(new Bean(metrics), objectName);
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	public void unregister(String name) {
+		try {
+			ObjectName objectName = objectName(name);
+			if(server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	private static ObjectName objectName(String name) throws JMException {
+		return new ObjectName("dev.westernpine.pipelines:type=Pipeline,name=" + ObjectName.quote(name));
+	}
+	
+	private static double millis(double nanos) {
+		return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+	
+	private static class Bean implements PipelineMetricsMXBean {
+		
+		private PipelineMetrics metrics;
+		
+		private Bean(PipelineMetrics metrics) {
+			this.metrics = metrics;
+		}
+		
+		public long getMessagesSent() {
+			return metrics.getSent(MessageType.MESSAGE);
+		}
+		
+		public long getMessagesReceived() {
+			return metrics.getReceived(MessageType.MESSAGE);
+		}
+		
+		public long getRequestsSent() {
+			return metrics.getSent(MessageType.REQUEST);
+		}
+		
+		public long getRequestsReceived() {
+			return metrics.getReceived(MessageType.REQUEST);
+		}
+		
+		public long getResponsesSent() {
+			return metrics.getSent(MessageType.RESPONSE);
+		}
+		
+		public long getResponsesReceived() {
+			return metrics.getReceived(MessageType.RESPONSE);
+		}
+		
+		public long getFramesSent() {
+			return metrics.getFramesSent();
+		}
+		
+		public long getFramesReceived() {
+			return metrics.getFramesReceived();
+		}
+		
+		public long getBytesSent() {
+			return metrics.getBytesSent();
+		}
+		
+		public long getBytesReceived() {
+			return metrics.getBytesReceived();
+		}
+		
+		public int getPendingRequests() {
+			return metrics.getPendingRequests();
+		}
+		
+		public long getTimeouts() {
+			return metrics.getTimeouts();
+		}
+		
+		public long getNoRoutablePaths() {
+			return metrics.getNoRoutablePaths();
+		}
+		
+		public long getDecodeErrors() {
+			return metrics.getDecodeErrors();
+		}
+		
+		public long getAbandonedFrames() {
+			return metrics.getAbandonedFrames();
+		}
+		
+		public double getRoundTripMean() {
+			return millis(metrics.getRoundTripTime().getMean());
+		}
+		
+		public double getRoundTrip50thPercentile() {
+			return millis(metrics.getRoundTripTime().getPercentile(50));
+		}
+		
+		public double getRoundTrip99thPercentile() {
+			return millis(metrics.getRoundTripTime().getPercentile(99));
+		}
+		
+		public double getRoundTrip999thPercentile() {
+			return millis(metrics.getRoundTripTime().getPercentile(99.9));
+		}
+		
+		public double getRoundTripMax() {
+			return millis(metrics.getRoundTripTime().getMax());
+		}
+		
+		public double getEncode99thPercentile() {
+			return millis(metrics.getEncodeTime().getPercentile(99));
+		}
+		
+		public double getDecode99thPercentile() {
+			return millis(metrics.getDecodeTime().getPercentile(99));
+		}
+		
+		public double getFrameSizeMean() {
+			return metrics.getFrameSize().getMean();
+		}
+		
+		public long getFrameSize99thPercentile() {
+			return metrics.getFrameSize().getPercentile(99);
+		}
+		
+		public long getFrameSizeMax() {
+			return metrics.getFrameSize().getMax();
+		}
+		
+	}
+
+}
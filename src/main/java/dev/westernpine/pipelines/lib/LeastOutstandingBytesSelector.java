@@ -0,0 +1,44 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Sends over the online connection with the fewest bytes estimated to still be in flight,
+ * spreading large frames away from connections that are already busy.
+ * 
+ * Frames over different connections arrive in no particular order, so this doesn't suit streams,
+ * or anything relying on the order frames are sent in. {@link StickySelector} keeps frames in order.
+ */
+public class LeastOutstandingBytesSelector extends TrackingCarrierSelector {
+	
+	public LeastOutstandingBytesSelector() {
+		this(Duration.ofMillis(100));
+	}
+	
+	/**
+	 * @param halfLife How long it takes for half of the bytes sent over a connection to no longer count as in flight.
+	 */
+	public LeastOutstandingBytesSelector(Duration halfLife) {
+		super(halfLife);
+	}
+	
+	protected <T> T choose(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize, long now) {
+		T selected = null;
+		double fewest = Double.MAX_VALUE;
+		for(T carrier : carriers) {
+			CarrierLoad load = peekLoad(ids.apply(carrier));
+			if(load == null)
+				return carrier;
+			double outstanding = load.getOutstanding(now);
+			if(outstanding < fewest) {
+				selected = carrier;
+				fewest = outstanding;
+			}
+		}
+		return selected;
+	}
+
+}
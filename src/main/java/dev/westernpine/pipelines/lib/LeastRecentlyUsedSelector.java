@@ -0,0 +1,43 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Sends over the online connection that has gone the longest without carrying a frame.
+ * 
+ * Frames over different connections arrive in no particular order, so this doesn't suit streams,
+ * or anything relying on the order frames are sent in. {@link StickySelector} keeps frames in order.
+ */
+public class LeastRecentlyUsedSelector extends TrackingCarrierSelector {
+	
+	public LeastRecentlyUsedSelector() {
+		this(Duration.ofMillis(100));
+	}
+	
+	/**
+	 * @param halfLife How long it takes for half of the bytes sent over a connection to no longer count as in flight.
+	 */
+	public LeastRecentlyUsedSelector(Duration halfLife) {
+		super(halfLife);
+	}
+	
+	protected <T> T choose(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize, long now) {
+		T selected = null;
+		long longestIdle = -1;
+		for(T carrier : carriers) {
+			CarrierLoad load = peekLoad(ids.apply(carrier));
+			if(load == null)
+				return carrier;
+			long idle = now - load.getLastUsed();
+			if(idle > longestIdle) {
+				selected = carrier;
+				longestIdle = idle;
+			}
+		}
+		return selected;
+	}
+
+}
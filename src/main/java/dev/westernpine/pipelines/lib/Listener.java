@@ -0,0 +1,70 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import dev.westernpine.pipelines.api.Registration;
+
+/**
+ * A registered handler, the executor it is dispatched on, and its priority.
+ */
+public class Listener<T> implements Registration {
+	
+	private Consumer<T> handler;
+	
+	private Executor executor;
+	
+	private int priority;
+	
+	private volatile ListenerRegistry<T> registry;
+	
+	/**
+	 * A registered handler.
+	 * 
+	 * @param handler The handler.
+	 * @param executor The executor to dispatch on, otherwise null to use the pipeline's default executor.
+	 */
+	public Listener(Consumer<T> handler, Executor executor) {
+		this(handler, executor, 0);
+	}
+	
+	/**
+	 * A registered handler.
+	 * 
+	 * @param handler The handler.
+	 * @param executor The executor to dispatch on, otherwise null to use the pipeline's default executor.
+	 * @param priority The priority of the handler, handlers with a higher priority are dispatched to first.
+	 */
+	public Listener(Consumer<T> handler, Executor executor, int priority) {
+		this.handler = handler;
+		this.executor = executor;
+		this.priority = priority;
+	}
+	
+	public Consumer<T> getHandler() {
+		return this.handler;
+	}
+	
+	public Executor getExecutor() {
+		return this.executor;
+	}
+	
+	public int getPriority() {
+		return this.priority;
+	}
+	
+	public void unregister() {
+		ListenerRegistry<T> registry = this.registry;
+		if(registry != null)
+			registry.unregister(this);
+	}
+	
+	public boolean isRegistered() {
+		return this.registry != null;
+	}
+	
+	void setRegistry(ListenerRegistry<T> registry) {
+		this.registry = registry;
+	}
+
+}
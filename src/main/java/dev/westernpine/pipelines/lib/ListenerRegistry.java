@@ -0,0 +1,72 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Arrays;
+
+/**
+ * The listeners of a pipeline or route, ordered by priority, then by when they were registered.
+ * 
+ * Listeners are held in an array replaced on every registration, so dispatch reads a consistent snapshot
+ * without locking, iterators or allocation, and registering from any thread never disturbs a dispatch in progress.
+ */
+public class ListenerRegistry<T> {
+	
+	private static final Listener<?>[] NONE = new Listener<?>[0];
+	
+	@SuppressWarnings("unchecked")
+	private volatile Listener<T>[] listeners = (Listener<T>[]) NONE;
+	
+	/**
+	 * @return No listeners, shared and never to be modified.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Listener<T>[] none() {
+		return (Listener<T>[]) NONE;
+	}
+	
+	/**
+	 * Adds a listener after every listener of a higher or equal priority.
+	 * 
+	 * @throws IllegalStateException If the listener is already registered.
+	 */
+	public synchronized void register(Listener<T> listener) {
+		if(listener.isRegistered())
+			throw new IllegalStateException("The listener is already registered!");
+		Listener<T>[] current = listeners;
+		int index = current.length;
+		while(index > 0 && current[index - 1].getPriority() < listener.getPriority())
+			index--;
+		Listener<T>[] next = Arrays.copyOf(current, current.length + 1);
+		System.arraycopy(current, index, next, index + 1, current.length - index);
+		next[index] = listener;
+		listener.setRegistry(this);
+		listeners = next;
+	}
+	
+	/**
+	 * Removes a listener, if it is registered here.
+	 */
+	public synchronized void unregister(Listener<T> listener) {
+		Listener<T>[] current = listeners;
+		for(int i = 0; i < current.length; i++) {
+			if(current[i] != listener)
+				continue;
+			Listener<T>[] next = Arrays.copyOf(current, current.length - 1);
+			System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+			listener.setRegistry(null);
+			listeners = next;
+			return;
+		}
+	}
+	
+	/**
+	 * @return The listeners at this moment, which must not be modified.
+	 */
+	public Listener<T>[] snapshot() {
+		return listeners;
+	}
+	
+	public int size() {
+		return listeners.length;
+	}
+
+}
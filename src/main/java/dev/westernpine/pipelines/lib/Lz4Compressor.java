@@ -0,0 +1,142 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Arrays;
+
+/**
+ * Compresses frames in the LZ4 block format, trading ratio for speed.
+ * 
+ * Repeated runs of at least four bytes within the last 64KB are replaced by a back reference,
+ * found through a hash table of the bytes seen so far, reused per thread.
+ * Any LZ4 block decoder can read the output, so this can be swapped for a native LZ4 library on both ends.
+ */
+public class Lz4Compressor implements FrameCompressor {
+	
+	private static final int HASH_BITS = 12;
+	
+	private static final int MIN_MATCH = 4;
+	
+	private static final int MATCH_LIMIT = 12;
+	
+	private static final int LAST_LITERALS = 5;
+	
+	private static final int MAX_OFFSET = 0xFFFF;
+	
+	private static final ThreadLocal<int[]> TABLES = ThreadLocal.withInitial(() -> new int[1 << HASH_BITS]);
+	
+	public byte[] compress(byte[] source, int offset, int length) {
+		byte[] compressed = new byte[length + length / 255 + 16];
+		int[] table = TABLES.get();
+		Arrays.fill(table, 0);
+		int end = offset + length;
+		int anchor = offset;
+		int position = offset;
+		int size = 0;
+		while(position < end - MATCH_LIMIT) {
+			int sequence = readInt(source, position);
+			int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+			int match = table[hash] - 1 + offset;
+			table[hash] = position - offset + 1;
+			if(match < offset || position - match > MAX_OFFSET || readInt(source, match) != sequence) {
+				position += 1 + ((position - anchor) >>> 6);
+				continue;
+			}
+			while(position > anchor && match > offset && source[position - 1] == source[match - 1]) {
+				position--;
+				match--;
+			}
+			int matchLength = MIN_MATCH;
+			while(position + matchLength < end - LAST_LITERALS && source[position + matchLength] == source[match + matchLength])
+				matchLength++;
+			size = writeSequence(compressed, size, source, anchor, position - anchor, position - match, matchLength);
+			position += matchLength;
+			anchor = position;
+		}
+		size = writeSequence(compressed, size, source, anchor, end - anchor, 0, 0);
+		return Arrays.copyOf(compressed, size);
+	}
+	
+	public byte[] decompress(byte[] source, int offset, int length, int originalLength) {
+		byte[] decompressed = new byte[originalLength];
+		int end = offset + length;
+		int position = offset;
+		int size = 0;
+		try {
+			while(position < end) {
+				int token = source[position++] & 0xFF;
+				int literals = token >>> 4;
+				if(literals == 15) {
+					int extra;
+					do {
+						literals += extra = source[position++] & 0xFF;
+					} while(extra == 255);
+				}
+				if(literals > end - position || literals > originalLength - size)
+					throw new RuntimeException(new MalformedFrameException());
+				System.arraycopy(source, position, decompressed, size, literals);
+				position += literals;
+				size += literals;
+				if(position == end)
+					break;
+				int distance = (source[position] & 0xFF) | (source[position + 1] & 0xFF) << 8;
+				position += 2;
+				int matchLength = token & 15;
+				if(matchLength == 15) {
+					int extra;
+					do {
+						matchLength += extra = source[position++] & 0xFF;
+					} while(extra == 255);
+				}
+				matchLength += MIN_MATCH;
+				int match = size - distance;
+				if(distance == 0 || match < 0 || matchLength > originalLength - size)
+					throw new RuntimeException(new MalformedFrameException());
+				if(distance >= matchLength) {
+					System.arraycopy(decompressed, match, decompressed, size, matchLength);
+					size += matchLength;
+				} else {
+					for(int i = 0; i < matchLength; i++)
+						decompressed[size++] = decompressed[match + i];
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new RuntimeException(new MalformedFrameException());
+		}
+		if(size != originalLength)
+			throw new RuntimeException(new MalformedFrameException());
+		return decompressed;
+	}
+	
+	/**
+	 * Writes a run of literals, followed by a match unless the match length is zero.
+	 */
+	private static int writeSequence(byte[] destination, int size, byte[] source, int literalsOffset, int literals, int distance, int matchLength) {
+		int token = size++;
+		int matchToken = matchLength == 0 ? 0 : matchLength - MIN_MATCH;
+		destination[token] = (byte) (Math.min(literals, 15) << 4 | Math.min(matchToken, 15));
+		size = writeLength(destination, size, literals);
+		System.arraycopy(source, literalsOffset, destination, size, literals);
+		size += literals;
+		if(matchLength == 0)
+			return size;
+		destination[size++] = (byte) distance;
+		destination[size++] = (byte) (distance >>> 8);
+		return writeLength(destination, size, matchToken);
+	}
+	
+	private static int writeLength(byte[] destination, int size, int length) {
+		if(length < 15)
+			return size;
+		length -= 15;
+		while(length >= 255) {
+			destination[size++] = (byte) 255;
+			length -= 255;
+		}
+		destination[size++] = (byte) length;
+		return size;
+	}
+	
+	private static int readInt(byte[] source, int offset) {
+		return (source[offset] & 0xFF) | (source[offset + 1] & 0xFF) << 8 | (source[offset + 2] & 0xFF) << 16 | (source[offset + 3] & 0xFF) << 24;
+	}
+
+}
@@ -0,0 +1,11 @@
+package dev.westernpine.pipelines.lib;
+
+public class MalformedFrameException extends Exception {
+	
+	private static final long serialVersionUID = 1L;
+
+	public MalformedFrameException() {
+		super("The frame could not be decoded.");
+	}
+
+}
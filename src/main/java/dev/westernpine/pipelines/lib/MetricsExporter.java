@@ -0,0 +1,23 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * Publishes the metrics of pipelines somewhere they can be read.
+ */
+public interface MetricsExporter {
+	
+	/**
+	 * Starts publishing the metrics of a pipeline.
+	 * 
+	 * @param name A name unique to the pipeline, such as its channel.
+	 * @param metrics The metrics of the pipeline.
+	 */
+	public void register(String name, PipelineMetrics metrics);
+	
+	/**
+	 * Stops publishing the metrics of a pipeline.
+	 * 
+	 * @param name The name the pipeline was registered with.
+	 */
+	public void unregister(String name);
+
+}
@@ -0,0 +1,185 @@
+package dev.westernpine.pipelines.lib;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.UUID;
+
+/**
+ * Holds frames that could not be sent for lack of a connection, until one becomes available.
+ * 
+ * Frames are held in memory up to a byte limit, then optionally in a spill file.
+ * Once the spill file holds frames, new frames follow them into it, so frames always leave in the order they arrived.
+ * When both are full, the overflow policy decides which frame is lost.
+ */
+public class OfflineQueue {
+	
+	private long maxBytes;
+	
+	private OverflowPolicy policy;
+	
+	private SpillFile spill;
+	
+	private ArrayDeque<Frame> memory = new ArrayDeque<>();
+	
+	private long bytes;
+	
+	private long dropped;
+	
+	/**
+	 * @param maxBytes The most bytes of frames held in memory.
+	 * @param policy What to do with a frame when the queue is full.
+	 * @param spill The file to hold frames that do not fit in memory, otherwise null.
+	 */
+	public OfflineQueue(long maxBytes, OverflowPolicy policy, SpillFile spill) {
+		this.maxBytes = maxBytes;
+		this.policy = policy;
+		this.spill = spill;
+	}
+	
+	/**
+	 * Queues a frame, or applies the overflow policy if the queue is full.
+	 * A frame larger than the queue could ever hold is the only frame lost, however the policy evicts.
+	 * 
+	 * @return False if the policy is {@link OverflowPolicy#REJECT} and the frame did not fit.
+	 */
+	public synchronized boolean offer(UUID carrier, byte[] frame) {
+		if(frame.length > maxBytes && (spill == null || !spill.fits(frame.length))) {
+			if(policy == OverflowPolicy.REJECT)
+				return false;
+			dropped++;
+			return true;
+		}
+		while(!add(carrier, frame)) {
+			if(policy == OverflowPolicy.REJECT)
+				return false;
+			if(policy == OverflowPolicy.DROP_NEWEST || !evict()) {
+				dropped++;
+				return true;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return The oldest frame, otherwise null if empty.
+	 */
+	public synchronized Frame peek() {
+		promote();
+		return memory.peek();
+	}
+	
+	/**
+	 * Removes the oldest frame.
+	 */
+	public synchronized void remove() {
+		Frame frame = memory.poll();
+		if(frame != null)
+			bytes -= frame.frame.length;
+		promote();
+	}
+	
+	/**
+	 * Puts a removed frame back in front of the queue, ignoring the byte limit, so it is the next to leave.
+	 */
+	public synchronized void requeue(Frame frame) {
+		memory.addFirst(frame);
+		bytes += frame.frame.length;
+	}
+	
+	public synchronized boolean isEmpty() {
+		return memory.isEmpty() && (spill == null || spill.isEmpty());
+	}
+	
+	/**
+	 * @return The amount of frames queued.
+	 */
+	public synchronized int size() {
+		return memory.size() + (spill == null ? 0 : spill.size());
+	}
+	
+	/**
+	 * @return The amount of frames lost to the overflow policy.
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+	
+	/**
+	 * Discards every queued frame, and closes the spill file.
+	 */
+	public synchronized void close() {
+		memory.clear();
+		bytes = 0;
+		if(spill != null) {
+			try {
+				spill.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	private boolean add(UUID carrier, byte[] frame) {
+		if((spill == null || spill.isEmpty()) && bytes + frame.length <= maxBytes) {
+			memory.add(new Frame(carrier, frame));
+			bytes += frame.length;
+			return true;
+		}
+		return spill != null && spill.offer(carrier, frame);
+	}
+	
+	/**
+	 * Drops the oldest frame.
+	 * 
+	 * @return False if there was nothing to drop.
+	 */
+	private boolean evict() {
+		if(memory.isEmpty())
+			promote();
+		Frame oldest = memory.poll();
+		if(oldest == null)
+			return false;
+		bytes -= oldest.frame.length;
+		dropped++;
+		promote();
+		return true;
+	}
+	
+	/**
+	 * Moves spilled frames into memory while they fit, keeping their order.
+	 */
+	private void promote() {
+		if(spill == null)
+			return;
+		SpillFile.Entry entry = new SpillFile.Entry();
+		while(!spill.isEmpty() && (memory.isEmpty() || bytes + spill.peekSize() <= maxBytes) && spill.poll(entry)) {
+			memory.add(new Frame(entry.getCarrier(), entry.getFrame()));
+			bytes += entry.getFrame().length;
+		}
+	}
+	
+	/**
+	 * A queued frame, and the carrier it was addressed with.
+	 */
+	public static class Frame {
+		
+		private UUID carrier;
+		
+		private byte[] frame;
+		
+		private Frame(UUID carrier, byte[] frame) {
+			this.carrier = carrier;
+			this.frame = frame;
+		}
+		
+		public UUID getCarrier() {
+			return this.carrier;
+		}
+		
+		public byte[] getFrame() {
+			return this.frame;
+		}
+		
+	}
+
+}
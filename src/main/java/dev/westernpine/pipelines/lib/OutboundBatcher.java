@@ -0,0 +1,159 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import dev.westernpine.pipelines.lib.TimingWheel.Timeout;
+
+/**
+ * Coalesces outgoing frames per carrier into batch frames.
+ * 
+ * A batch is flushed when {@link #flush()} is called (such as at the end of a tick),
+ * when adding a frame would exceed the size threshold, or once the linger time has passed.
+ * Frames for a carrier are transmitted in the order they were added, a frame too large to batch is sent after the batch waiting before it.
+ * Batches are forgotten once flushed empty, so carriers that have left don't accumulate.
+ */
+public class OutboundBatcher {
+	
+	private static final UUID NO_CARRIER = new UUID(0, 0);
+	
+	private PipelineCodec codec;
+	
+	private BiConsumer<UUID, byte[]> transmitter;
+	
+	private int maxBytes;
+	
+	private long lingerNanos;
+	
+	private TimingWheel timer;
+	
+	private ConcurrentHashMap<UUID, Batch> batches = new ConcurrentHashMap<>();
+	
+	/**
+	 * Coalesces outgoing frames per carrier into batch frames.
+	 * 
+	 * @param codec The codec to encode batch frames with.
+	 * @param transmitter Sends a frame using a carrier's connection.
+	 * @param maxBytes The size a batch is flushed at.
+	 * @param linger The longest a frame may wait in a batch, zero to only flush on size or when told to.
+	 * @param timer The timing wheel to schedule linger flushes on.
+	 */
+	public OutboundBatcher(PipelineCodec codec, BiConsumer<UUID, byte[]> transmitter, int maxBytes, Duration linger, TimingWheel timer) {
+		this.codec = codec;
+		this.transmitter = transmitter;
+		this.maxBytes = maxBytes;
+		this.lingerNanos = linger.toNanos();
+		this.timer = timer;
+	}
+	
+	/**
+	 * Adds a frame to the carrier's batch, flushing the batch if it is full.
+	 * A frame too large to batch flushes the carrier's batch, and is then sent on its own.
+	 * 
+	 * @param carrier The player to carry the frame.
+	 * @param frame The encoded frame.
+	 */
+	public void add(UUID carrier, byte[] frame) {
+		UUID key = carrier == null ? NO_CARRIER : carrier;
+		if(frame.length >= maxBytes) {
+			Batch batch = batches.get(key);
+			if(batch == null) {
+				transmitter.accept(carrier, frame);
+				return;
+			}
+			synchronized (batch) {
+				if(!batch.frames.isEmpty())
+					transmit(carrier, batch.drain());
+				retire(key, batch);
+				transmitter.accept(carrier, frame);
+			}
+			return;
+		}
+		while(true) {
+			Batch batch = batches.computeIfAbsent(key, k -> new Batch(carrier));
+			synchronized (batch) {
+				// Lost the race with a flush forgetting the batch, so use its replacement.
+				if(batch.retired)
+					continue;
+				List<byte[]> full = null;
+				if(batch.size + frame.length + 5 > maxBytes)
+					full = batch.drain();
+				if(batch.frames.isEmpty() && lingerNanos > 0)
+					batch.linger = timer.schedule(() -> flush(key, batch), lingerNanos, TimeUnit.NANOSECONDS);
+				batch.frames.add(frame);
+				batch.size += frame.length + 5;
+				if(full != null)
+					transmit(carrier, full);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Flushes every batch.
+	 */
+	public void flush() {
+		for(Entry<UUID, Batch> entry : batches.entrySet())
+			flush(entry.getKey(), entry.getValue());
+	}
+	
+	/**
+	 * Transmits a batch and forgets it, transmitting while holding the batch so frames added meanwhile wait their turn.
+	 */
+	private void flush(UUID key, Batch batch) {
+		synchronized (batch) {
+			try {
+				if(!batch.frames.isEmpty())
+					transmit(batch.carrier, batch.drain());
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			retire(key, batch);
+		}
+	}
+	
+	private void retire(UUID key, Batch batch) {
+		batch.retired = true;
+		batches.remove(key, batch);
+	}
+	
+	private void transmit(UUID carrier, List<byte[]> frames) {
+		transmitter.accept(carrier, frames.size() == 1 ? frames.get(0) : codec.encodeBatch(frames));
+	}
+	
+	private static class Batch {
+		
+		private UUID carrier;
+		
+		private List<byte[]> frames = new ArrayList<>();
+		
+		private int size = 1;
+		
+		private Timeout linger;
+		
+		private boolean retired;
+		
+		private Batch(UUID carrier) {
+			this.carrier = carrier;
+		}
+		
+		private List<byte[]> drain() {
+			List<byte[]> drained = frames;
+			frames = new ArrayList<>();
+			size = 1;
+			if(linger != null) {
+				linger.cancel();
+				linger = null;
+			}
+			return drained;
+		}
+		
+	}
+
+}
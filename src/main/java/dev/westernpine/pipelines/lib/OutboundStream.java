@@ -0,0 +1,164 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.api.ResponseStream;
+import dev.westernpine.pipelines.lib.TimingWheel.Timeout;
+
+/**
+ * The responding end of a stream of responses, sending them as the requester grants credits.
+ * 
+ * A stream that neither sends a response nor receives credits for its idle timeout is ended with an error,
+ * so streams whose requester left, or whose responder forgot them, don't stay registered forever.
+ */
+public class OutboundStream implements ResponseStream {
+	
+	private AbstractPipeline pipeline;
+	
+	private UUID carrier;
+	
+	private UUID uuid;
+	
+	private long idleNanos;
+	
+	private TimingWheel timer;
+	
+	private Timeout timeout;
+	
+	private volatile long lastActive = System.nanoTime();
+	
+	private long demand;
+	
+	private ArrayDeque<Response> queued = new ArrayDeque<>();
+	
+	private volatile Runnable onDemand;
+	
+	private volatile boolean closed;
+	
+	private boolean ending;
+	
+	/**
+	 * @param pipeline The pipeline to send the responses over.
+	 * @param carrier The player that carried the streamed request.
+	 * @param uuid The UUID of the streamed request.
+	 * @param idleTimeout How long the stream may go without sending a response or receiving credits.
+	 * @param timer The timing wheel to time out on.
+	 */
+	public OutboundStream(AbstractPipeline pipeline, UUID carrier, UUID uuid, Duration idleTimeout, TimingWheel timer) {
+		this.pipeline = pipeline;
+		this.carrier = carrier;
+		this.uuid = uuid;
+		this.idleNanos = idleTimeout.toNanos();
+		this.timer = timer;
+	}
+	
+	public UUID getUuid() {
+		return this.uuid;
+	}
+	
+	public synchronized long getDemand() {
+		return this.demand;
+	}
+	
+	public void onDemand(Runnable task) {
+		this.onDemand = task;
+	}
+	
+	public synchronized void send(Response response) {
+		if(closed || ending)
+			return;
+		if(demand > 0 && queued.isEmpty()) {
+			demand--;
+			lastActive = System.nanoTime();
+			pipeline.respond(response);
+		} else {
+			queued.add(response);
+		}
+	}
+	
+	public synchronized void end() {
+		if(closed || ending)
+			return;
+		ending = true;
+		if(queued.isEmpty())
+			close(null);
+	}
+	
+	public synchronized void fail(String reason) {
+		if(closed)
+			return;
+		queued.clear();
+		close(reason == null ? "The responder failed." : reason);
+	}
+	
+	public boolean isClosed() {
+		return this.closed;
+	}
+	
+	/**
+	 * Grants the stream more credits, sending any queued responses they cover.
+	 */
+	void grant(long credits) {
+		synchronized (this) {
+			if(closed)
+				return;
+			lastActive = System.nanoTime();
+			demand = demand + credits < 0 ? Long.MAX_VALUE : demand + credits;
+			while(demand > 0 && !queued.isEmpty()) {
+				demand--;
+				pipeline.respond(queued.poll());
+			}
+			if(ending && queued.isEmpty()) {
+				close(null);
+				return;
+			}
+		}
+		Runnable onDemand = this.onDemand;
+		if(onDemand != null && !ending)
+			onDemand.run();
+	}
+	
+	/**
+	 * Closes the stream after the requester cancelled it.
+	 */
+	synchronized void cancel() {
+		closed = true;
+		queued.clear();
+		if(timeout != null)
+			timeout.cancel();
+	}
+	
+	/**
+	 * Starts timing the stream out once idle, after it is registered with the pipeline.
+	 */
+	synchronized void start() {
+		if(!closed)
+			timeout = timer.schedule(this::expire, idleNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	private synchronized void expire() {
+		if(closed)
+			return;
+		long idle = System.nanoTime() - lastActive;
+		if(idle < idleNanos) {
+			timeout = timer.schedule(this::expire, idleNanos - idle, TimeUnit.NANOSECONDS);
+			return;
+		}
+		try {
+			fail("The stream was idle for too long.");
+		} catch (RuntimeException e) {}
+	}
+	
+	private void close(String error) {
+		closed = true;
+		if(timeout != null)
+			timeout.cancel();
+		pipeline.closeStream(this);
+		pipeline.signal(carrier, StreamSignal.end(uuid, error));
+	}
+
+}
@@ -0,0 +1,24 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * What an offline queue does with a frame when it is full.
+ */
+public enum OverflowPolicy {
+	
+	/**
+	 * Drops the oldest queued frames to make room for the new one.
+	 */
+	DROP_OLDEST(),
+	
+	/**
+	 * Drops the new frame.
+	 */
+	DROP_NEWEST(),
+	
+	/**
+	 * Fails sending the new frame with a {@link NoRoutablePathException}, as if there was no queue.
+	 */
+	REJECT(),
+	;
+
+}
@@ -0,0 +1,278 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.LinkedList;
+import java.util.UUID;
+
+/**
+ * The encoded elements of a message, stored in a growable byte buffer.
+ * 
+ * Elements are encoded as they are written and decoded as they are read,
+ * so primitives are never boxed or held in list nodes, and elements skipped or never read are never decoded.
+ * Received payloads are read in place from the frame they arrived in.
+ */
+public class Payload {
+	
+	private FrameWriter writer;
+	
+	private boolean inPlace;
+	
+	private byte[] frame;
+	
+	private int limit;
+	
+	private FrameReader reader;
+	
+	private int position;
+	
+	/**
+	 * An empty payload.
+	 */
+	public Payload() {
+		this.writer = new FrameWriter();
+	}
+	
+	/**
+	 * A payload reading already encoded elements in place.
+	 * The elements are only copied out of the array once the payload is written to,
+	 * so the array must not be modified while the payload is in use.
+	 * 
+	 * @param buffer The array holding the encoded elements.
+	 * @param offset The index of the first element.
+	 * @param length The length of the encoded elements.
+	 */
+	public Payload(byte[] buffer, int offset, int length) {
+		wrap(buffer, offset, length);
+	}
+	
+	/**
+	 * A payload holding the elements of a list.
+	 * 
+	 * @param objects The elements.
+	 */
+	public Payload(LinkedList<Object> objects) {
+		this();
+		objects.forEach(this::append);
+	}
+	
+	/**
+	 * Empties the payload, keeping its buffer for reuse unless it has grown large.
+	 */
+	public void reset() {
+		if(writer != null && writer.buffer().length > 1 << 16)
+			writer = null;
+		if(writer != null)
+			writer.reset();
+		inPlace = false;
+		frame = null;
+		position = limit = 0;
+	}
+	
+	/**
+	 * Empties the payload, and reads already encoded elements in place.
+	 * The elements are only copied out of the array once the payload is written to,
+	 * so the array must not be modified while the payload is in use.
+	 * 
+	 * @param buffer The array holding the encoded elements.
+	 * @param offset The index of the first element.
+	 * @param length The length of the encoded elements.
+	 */
+	public void wrap(byte[] buffer, int offset, int length) {
+		reset();
+		this.inPlace = true;
+		this.frame = buffer;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+	
+	/**
+	 * @return True if the payload has elements remaining.
+	 */
+	public boolean hasNext() {
+		return position < limit();
+	}
+	
+	/**
+	 * @return The amount of encoded bytes remaining.
+	 */
+	public int remaining() {
+		return limit() - position;
+	}
+	
+	private byte[] buffer() {
+		return inPlace ? frame : writer().buffer();
+	}
+	
+	private int limit() {
+		return inPlace ? limit : writer == null ? 0 : writer.size();
+	}
+	
+	private FrameWriter writer() {
+		if(inPlace) {
+			int length = limit - position;
+			if(writer == null)
+				writer = new FrameWriter(length + 16);
+			writer.writeBytes(frame, position, length);
+			inPlace = false;
+			frame = null;
+			position = limit = 0;
+		} else if(writer == null) {
+			writer = new FrameWriter();
+		}
+		return writer;
+	}
+	
+	/**
+	 * Writes the encoded elements remaining into a frame.
+	 */
+	public void writeTo(FrameWriter frame) {
+		frame.writeBytes(buffer(), position, remaining());
+	}
+	
+	/**
+	 * @return A copy of the elements remaining, without reading them.
+	 */
+	public LinkedList<Object> toList() {
+		LinkedList<Object> objects = new LinkedList<>();
+		FrameReader reader = new FrameReader(buffer(), position, remaining());
+		while(reader.hasRemaining())
+			objects.add(reader.readObject());
+		return objects;
+	}
+	
+	/**
+	 * A view of the elements remaining, read in place with its own position, so reading one never affects the other.
+	 * The view copies its elements out once it is written to, but this payload must not be written to while the view is in use.
+	 * 
+	 * @return A view of the elements remaining.
+	 */
+	public Payload view() {
+		return new Payload(buffer(), position, remaining());
+	}
+	
+	/**
+	 * @return A copy of the elements remaining.
+	 */
+	public Payload copy() {
+		Payload copy = new Payload();
+		copy.writer.writeBytes(buffer(), position, remaining());
+		return copy;
+	}
+	
+	public void inject(Object object) {
+		FrameWriter element = new FrameWriter();
+		element.writeObject(object);
+		writer().insert(position, element.buffer(), 0, element.size());
+	}
+	
+	public void append(Object object) {
+		writer().writeObject(object);
+	}
+	
+	public void writeInt(int value) {
+		writer().writeByte(FrameWriter.TAG_INT).writeVarInt(FrameWriter.zigZag(value));
+	}
+	
+	public void writeLong(long value) {
+		writer().writeByte(FrameWriter.TAG_LONG).writeVarLong(FrameWriter.zigZag(value));
+	}
+	
+	public void writeDouble(double value) {
+		writer().writeByte(FrameWriter.TAG_DOUBLE).writeLong(Double.doubleToRawLongBits(value));
+	}
+	
+	public void writeBoolean(boolean value) {
+		writer().writeByte(value ? FrameWriter.TAG_TRUE : FrameWriter.TAG_FALSE);
+	}
+	
+	public void writeString(String value) {
+		writer().writeObject(value);
+	}
+	
+	public void writeUUID(UUID value) {
+		writer().writeObject(value);
+	}
+	
+	private FrameReader reader() {
+		if(!hasNext())
+			throw new RuntimeException(new EmptyMessageException());
+		if(reader == null)
+			reader = new FrameReader(buffer(), position, remaining());
+		else
+			reader.wrap(buffer(), position, remaining());
+		return reader;
+	}
+	
+	private boolean readTag(byte expected, boolean nullable) {
+		byte tag = reader().readByte();
+		if(nullable && tag == FrameWriter.TAG_NULL)
+			return false;
+		if(tag != expected)
+			throw new ClassCastException("The next element is not of the requested type.");
+		return true;
+	}
+	
+	/**
+	 * Reads the next element without consuming it.
+	 * 
+	 * @return The next element.
+	 */
+	public Object peek() {
+		return reader().readObject();
+	}
+	
+	/**
+	 * Consumes the next element without decoding it.
+	 */
+	public void skip() {
+		reader().skipObject();
+		position = reader.position();
+	}
+	
+	public Object read() {
+		Object value = reader().readObject();
+		position = reader.position();
+		return value;
+	}
+	
+	public int readInt() {
+		readTag(FrameWriter.TAG_INT, false);
+		int value = FrameReader.unZigZag(reader.readVarInt());
+		position = reader.position();
+		return value;
+	}
+	
+	public long readLong() {
+		readTag(FrameWriter.TAG_LONG, false);
+		long value = FrameReader.unZigZag(reader.readVarLong());
+		position = reader.position();
+		return value;
+	}
+	
+	public double readDouble() {
+		readTag(FrameWriter.TAG_DOUBLE, false);
+		double value = Double.longBitsToDouble(reader.readLong());
+		position = reader.position();
+		return value;
+	}
+	
+	public boolean readBoolean() {
+		byte tag = reader().readByte();
+		if(tag != FrameWriter.TAG_TRUE && tag != FrameWriter.TAG_FALSE)
+			throw new ClassCastException("The next element is not of the requested type.");
+		position = reader.position();
+		return tag == FrameWriter.TAG_TRUE;
+	}
+	
+	public String readString() {
+		String value = readTag(FrameWriter.TAG_STRING, true) ? reader.readString() : null;
+		position = reader.position();
+		return value;
+	}
+	
+	public UUID readUUID() {
+		UUID value = readTag(FrameWriter.TAG_UUID, true) ? reader.readUUID() : null;
+		position = reader.position();
+		return value;
+	}
+
+}
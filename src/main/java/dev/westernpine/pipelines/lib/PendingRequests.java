@@ -0,0 +1,107 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import dev.westernpine.pipelines.api.Response;
+
+/**
+ * The table of requests awaiting a response, keyed by request UUID.
+ * 
+ * Safe to register, complete and expire from any thread at once.
+ * Each request carries its own deadline on the timing wheel, so nothing scans the table.
+ */
+public class PendingRequests {
+	
+	private TimingWheel timer;
+	
+	private RecordingMetrics metrics;
+	
+	private ConcurrentHashMap<UUID, ResponseListener> responseListeners = new ConcurrentHashMap<>();
+	
+	/**
+	 * The table of requests awaiting a response.
+	 * 
+	 * @param timer The timing wheel to expire requests on.
+	 */
+	public PendingRequests(TimingWheel timer) {
+		this(timer, null);
+	}
+	
+	/**
+	 * The table of requests awaiting a response.
+	 * 
+	 * @param timer The timing wheel to expire requests on.
+	 * @param metrics The metrics to record round trips and timeouts to, otherwise null.
+	 */
+	public PendingRequests(TimingWheel timer, RecordingMetrics metrics) {
+		this.timer = timer;
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Registers a request to await a response.
+	 * This must happen before the request is sent, so a fast response can never be missed.
+	 * A request already awaiting a response under the same UUID is displaced, and completes empty.
+	 * 
+	 * @param uuid The UUID of the request.
+	 * @param timeout How long to wait for the response.
+	 * @return The response to the request, otherwise empty if timed out.
+	 */
+	public CompletableFuture<Optional<Response>> register(UUID uuid, Duration timeout) {
+		ResponseListener listener = new ResponseListener(new CompletableFuture<>());
+		ResponseListener previous = responseListeners.put(uuid, listener);
+		if(previous != null) {
+			previous.cancel();
+			previous.handle();
+		}
+		listener.setTimeout(timer.schedule(() -> expire(uuid, listener), timeout.toNanos(), TimeUnit.NANOSECONDS));
+		return listener.getResponseHandler();
+	}
+	
+	/**
+	 * Stops awaiting a request without completing it, used when the request could not be sent.
+	 * 
+	 * @param uuid The UUID of the request.
+	 */
+	public void cancel(UUID uuid) {
+		ResponseListener listener = responseListeners.remove(uuid);
+		if(listener != null)
+			listener.cancel();
+	}
+	
+	/**
+	 * Completes the request the response belongs to.
+	 * 
+	 * @param response The response received.
+	 * @return True if a request was awaiting the response, and took it.
+	 */
+	public boolean complete(Response response) {
+		ResponseListener listener = responseListeners.remove(response.getUuid());
+		if(listener == null)
+			return false;
+		if(metrics != null)
+			metrics.responded(System.nanoTime() - listener.getCreated());
+		return listener.handle(response);
+	}
+	
+	private void expire(UUID uuid, ResponseListener listener) {
+		if(responseListeners.remove(uuid, listener)) {
+			if(metrics != null)
+				metrics.timedOut();
+			listener.handle();
+		}
+	}
+	
+	/**
+	 * @return The amount of requests awaiting a response.
+	 */
+	public int size() {
+		return responseListeners.size();
+	}
+
+}
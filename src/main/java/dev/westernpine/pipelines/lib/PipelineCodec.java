@@ -0,0 +1,145 @@
+package dev.westernpine.pipelines.lib;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.api.MessageType;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+
+/**
+ * Encodes messages into frames, and decodes them back.
+ * 
+ * Decoding reads heap buffers in place, so payloads may keep referencing the buffer's array.
+ */
+public interface PipelineCodec {
+	
+	/**
+	 * Encodes a message into a frame.
+	 * @param message The message to encode.
+	 * @return The encoded frame.
+	 */
+	public byte[] encode(Message message);
+	
+	/**
+	 * Encodes a request into a frame.
+	 * @param request The request to encode.
+	 * @return The encoded frame.
+	 */
+	public byte[] encode(Request request);
+	
+	/**
+	 * Encodes a response into a frame.
+	 * @param response The response to encode.
+	 * @return The encoded frame.
+	 */
+	public byte[] encode(Response response);
+	
+	/**
+	 * Encodes many frames into a single batch frame.
+	 * @param frames The encoded frames.
+	 * @return The encoded batch frame.
+	 */
+	public byte[] encodeBatch(List<byte[]> frames);
+	
+	/**
+	 * Reads the type of an encoded frame without decoding the rest of it.
+	 * @param frame The encoded frame, from its position to its limit.
+	 * @return The type of the frame.
+	 * 
+	 * @throws MalformedFrameException If the frame type is unknown.
+	 */
+	public MessageType typeOf(ByteBuffer frame);
+	
+	/**
+	 * Reads whether an encoded message or request frame is routed, without decoding the rest of it.
+	 * @param frame The encoded frame, from its position to its limit.
+	 * @return True if the frame carries a route id.
+	 */
+	public boolean isRouted(ByteBuffer frame);
+	
+	/**
+	 * Reads the route id of an encoded routed frame without decoding the rest of it, even when it is compressed.
+	 * @param frame The encoded frame, from its position to its limit.
+	 * @return The route id of the frame.
+	 * 
+	 * @throws MalformedFrameException If the frame is too short to carry a route id.
+	 */
+	public int routeOf(ByteBuffer frame);
+	
+	/**
+	 * Decodes a message frame.
+	 * @param carrier The player that carried the frame.
+	 * @param frame The encoded frame, from its position to its limit.
+	 * @return The decoded message.
+	 * 
+	 * @throws MalformedFrameException If the frame could not be decoded.
+	 */
+	public Message decodeMessage(UUID carrier, ByteBuffer frame);
+	
+	/**
+	 * Decodes a request frame.
+	 * @param carrier The player that carried the frame.
+	 * @param frame The encoded frame, from its position to its limit.
+	 * @return The decoded request.
+	 * 
+	 * @throws MalformedFrameException If the frame could not be decoded.
+	 */
+	public Request decodeRequest(UUID carrier, ByteBuffer frame);
+	
+	/**
+	 * Decodes a response frame.
+	 * @param carrier The player that carried the frame.
+	 * @param frame The encoded frame, from its position to its limit.
+	 * @return The decoded response.
+	 * 
+	 * @throws MalformedFrameException If the frame could not be decoded.
+	 */
+	public Response decodeResponse(UUID carrier, ByteBuffer frame);
+	
+	/**
+	 * Splits a batch frame back into the frames it holds.
+	 * @param frame The encoded batch frame, from its position to its limit.
+	 * @return Views of the encoded frames, in the order they were batched.
+	 * 
+	 * @throws MalformedFrameException If the frame could not be decoded.
+	 */
+	public List<ByteBuffer> decodeBatch(ByteBuffer frame);
+	
+	/**
+	 * Splits a frame into fragments, each small enough to be sent as its own plugin message.
+	 * 
+	 * @param id The id of the frame, unique to the sending pipeline.
+	 * @param frame The encoded frame.
+	 * @param maxBytes The largest a fragment may be.
+	 * @return The fragment frames, in order.
+	 */
+	public List<byte[]> encodeFragments(int id, byte[] frame, int maxBytes);
+	
+	/**
+	 * Decodes a fragment frame, its data is read in place.
+	 * 
+	 * @param frame The encoded frame.
+	 * @return The fragment.
+	 */
+	public Fragment decodeFragment(ByteBuffer frame);
+	
+	/**
+	 * Encodes a signal controlling a stream of responses.
+	 * 
+	 * @param signal The signal to be sent.
+	 * @return The encoded frame.
+	 */
+	public byte[] encode(StreamSignal signal);
+	
+	/**
+	 * Decodes a credit, cancel or end frame.
+	 * 
+	 * @param frame The encoded frame.
+	 * @return The signal.
+	 */
+	public StreamSignal decodeSignal(ByteBuffer frame);
+
+}
@@ -1,7 +1,18 @@
 package dev.westernpine.pipelines.lib;
 
+import java.util.concurrent.TimeUnit;
+
 public class PipelineDefaults {
 	public static long CACHE_TIME = 5000;
+	public static PipelineCodec CODEC = new BinaryCodec();
+	public static boolean RECYCLING = false;
+	public static boolean LEAK_DETECTION = false;
+	public static int FRAGMENT_SIZE = 32766;
+	public static long REASSEMBLY_TIMEOUT = 5000;
+	public static long MAX_REASSEMBLY_BYTES = 16 * 1024 * 1024;
+	public static long OFFLINE_RETRY_INTERVAL = 1000;
+	public static long STREAM_IDLE_TIMEOUT = 60000;
+	public static TimingWheel TIMER = new TimingWheel(1, TimeUnit.MILLISECONDS, 1024);
 	public static final String SPLITTER = ":";
 	public static final String REQUEST_PREFIX = "request";
 	public static final String RESPONSE_PREFIX = "response";
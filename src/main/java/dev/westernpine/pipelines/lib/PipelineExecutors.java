@@ -0,0 +1,32 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class PipelineExecutors {
+	
+	/**
+	 * Runs handlers on the thread that received the message, this is the default.
+	 */
+	public static final Executor DIRECT = Runnable::run;
+	
+	/**
+	 * Creates an executor starting a virtual thread per task on JDK 21 and above,
+	 * otherwise a cached thread pool on older runtimes.
+	 * 
+	 * @return The executor.
+	 */
+	public static ExecutorService virtualThreads() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "Pipeline Dispatcher");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package dev.westernpine.pipelines.lib;
+
+import dev.westernpine.pipelines.api.MessageType;
+
+/**
+ * What a pipeline has sent, received and waited on since it was created.
+ * 
+ * Times are recorded in nanoseconds, and sizes in bytes.
+ */
+public interface PipelineMetrics {
+	
+	/**
+	 * @param type The type of message, batches are counted as frames instead.
+	 * @return The amount of that type encoded to be sent.
+	 */
+	public long getSent(MessageType type);
+	
+	/**
+	 * @param type The type of message, batches are counted as frames instead.
+	 * @return The amount of that type received and decoded.
+	 */
+	public long getReceived(MessageType type);
+	
+	/**
+	 * @return The amount of plugin messages handed to the platform.
+	 */
+	public long getFramesSent();
+	
+	/**
+	 * @return The amount of plugin messages received from the platform.
+	 */
+	public long getFramesReceived();
+	
+	/**
+	 * @return The amount of bytes handed to the platform.
+	 */
+	public long getBytesSent();
+	
+	/**
+	 * @return The amount of bytes received from the platform.
+	 */
+	public long getBytesReceived();
+	
+	/**
+	 * @return The amount of requests awaiting a response right now.
+	 */
+	public int getPendingRequests();
+	
+	/**
+	 * @return The amount of requests that timed out without a response.
+	 */
+	public long getTimeouts();
+	
+	/**
+	 * @return The amount of frames that could not be sent, for lack of a player to carry them.
+	 */
+	public long getNoRoutablePaths();
+	
+	/**
+	 * @return The amount of frames received that could not be decoded.
+	 */
+	public long getDecodeErrors();
+	
+	/**
+	 * @return The amount of fragmented frames dropped, for timing out or not fitting in the reassembly buffer.
+	 */
+	public long getAbandonedFrames();
+	
+	/**
+	 * @return The time from sending a request to receiving its response.
+	 */
+	public Histogram getRoundTripTime();
+	
+	/**
+	 * @return The time taken to encode a frame.
+	 */
+	public Histogram getEncodeTime();
+	
+	/**
+	 * @return The time taken to decode a frame.
+	 */
+	public Histogram getDecodeTime();
+	
+	/**
+	 * @return The size of every frame encoded, before any batching.
+	 */
+	public Histogram getFrameSize();
+
+}
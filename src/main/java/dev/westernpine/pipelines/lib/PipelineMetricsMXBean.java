@@ -0,0 +1,58 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * The metrics of a pipeline as published over JMX, times in milliseconds and sizes in bytes.
+ */
+public interface PipelineMetricsMXBean {
+	
+	public long getMessagesSent();
+	
+	public long getMessagesReceived();
+	
+	public long getRequestsSent();
+	
+	public long getRequestsReceived();
+	
+	public long getResponsesSent();
+	
+	public long getResponsesReceived();
+	
+	public long getFramesSent();
+	
+	public long getFramesReceived();
+	
+	public long getBytesSent();
+	
+	public long getBytesReceived();
+	
+	public int getPendingRequests();
+	
+	public long getTimeouts();
+	
+	public long getNoRoutablePaths();
+	
+	public long getDecodeErrors();
+	
+	public long getAbandonedFrames();
+	
+	public double getRoundTripMean();
+	
+	public double getRoundTrip50thPercentile();
+	
+	public double getRoundTrip99thPercentile();
+	
+	public double getRoundTrip999thPercentile();
+	
+	public double getRoundTripMax();
+	
+	public double getEncode99thPercentile();
+	
+	public double getDecode99thPercentile();
+	
+	public double getFrameSizeMean();
+	
+	public long getFrameSize99thPercentile();
+	
+	public long getFrameSizeMax();
+
+}
@@ -0,0 +1,178 @@
+package dev.westernpine.pipelines.lib;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.westernpine.pipelines.lib.TimingWheel.Timeout;
+
+/**
+ * Reassembles fragmented frames, keyed by carrier and frame id.
+ * 
+ * Fragments arrive in order over a carrier's connection, so a frame is only started by its first fragment,
+ * and a frame missing a fragment is abandoned straight away.
+ * Every partial frame counts its full length against a shared memory cap, and is abandoned if it is not completed in time.
+ */
+public class Reassembler {
+	
+	private static final UUID NO_CARRIER = new UUID(0, 0);
+	
+	private long maxBytes;
+	
+	private long timeoutNanos;
+	
+	private TimingWheel timer;
+	
+	private RecordingMetrics metrics;
+	
+	private AtomicLong buffered = new AtomicLong();
+	
+	private ConcurrentHashMap<Key, Partial> partials = new ConcurrentHashMap<>();
+	
+	/**
+	 * Reassembles fragmented frames.
+	 * 
+	 * @param maxBytes The most bytes partial frames may hold at once, frames started past it are dropped.
+	 * @param timeout How long a frame may take to arrive after its first fragment.
+	 * @param timer The timing wheel to abandon frames on.
+	 * @param metrics The metrics to record abandoned frames to, otherwise null.
+	 */
+	public Reassembler(long maxBytes, Duration timeout, TimingWheel timer, RecordingMetrics metrics) {
+		this.maxBytes = maxBytes;
+		this.timeoutNanos = timeout.toNanos();
+		this.timer = timer;
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Adds a fragment to its frame.
+	 * 
+	 * @param carrier The player that carried the fragment.
+	 * @param fragment The fragment received, its data is copied.
+	 * @return The whole frame once its last fragment has arrived, otherwise null.
+	 * 
+	 * @throws MalformedFrameException If the fragment does not fit the frame it belongs to.
+	 */
+	public ByteBuffer add(UUID carrier, Fragment fragment) {
+		Key key = new Key(carrier == null ? NO_CARRIER : carrier, fragment.getId());
+		Partial partial = fragment.getOffset() == 0 ? start(key, fragment.getLength()) : partials.get(key);
+		if(partial == null)
+			return null;
+		ByteBuffer data = fragment.getData();
+		synchronized (partial) {
+			if(fragment.getLength() != partial.frame.length || data.remaining() > partial.frame.length - fragment.getOffset()) {
+				abandon(key, partial);
+				throw new RuntimeException(new MalformedFrameException());
+			}
+			if(fragment.getOffset() != partial.received) {
+				abandon(key, partial);
+				return null;
+			}
+			data.duplicate().get(partial.frame, partial.received, data.remaining());
+			partial.received += data.remaining();
+			if(partial.received < partial.frame.length)
+				return null;
+		}
+		if(!partials.remove(key, partial))
+			return null;
+		if(partial.timeout != null)
+			partial.timeout.cancel();
+		buffered.addAndGet(-partial.frame.length);
+		return ByteBuffer.wrap(partial.frame);
+	}
+	
+	/**
+	 * @return The amount of bytes held by partial frames.
+	 */
+	public long getBuffered() {
+		return buffered.get();
+	}
+	
+	/**
+	 * @return The amount of frames awaiting fragments.
+	 */
+	public int size() {
+		return partials.size();
+	}
+	
+	private Partial start(Key key, int length) {
+		if(length <= 0 || !reserve(length)) {
+			if(metrics != null)
+				metrics.abandoned();
+			return null;
+		}
+		Partial partial = new Partial(length);
+		Partial previous = partials.put(key, partial);
+		if(previous != null)
+			abandoned(previous);
+		partial.timeout = timer.schedule(() -> abandon(key, partial), timeoutNanos, TimeUnit.NANOSECONDS);
+		return partial;
+	}
+	
+	private boolean reserve(int length) {
+		long current;
+		do {
+			current = buffered.get();
+			if(current + length > maxBytes)
+				return false;
+		} while(!buffered.compareAndSet(current, current + length));
+		return true;
+	}
+	
+	private void abandon(Key key, Partial partial) {
+		if(partials.remove(key, partial))
+			abandoned(partial);
+	}
+	
+	private void abandoned(Partial partial) {
+		if(partial.timeout != null)
+			partial.timeout.cancel();
+		buffered.addAndGet(-partial.frame.length);
+		if(metrics != null)
+			metrics.abandoned();
+	}
+	
+	private static class Partial {
+		
+		private byte[] frame;
+		
+		private int received;
+		
+		private volatile Timeout timeout;
+		
+		private Partial(int length) {
+			this.frame = new byte[length];
+		}
+		
+	}
+	
+	private static class Key {
+		
+		private UUID carrier;
+		
+		private int id;
+		
+		private Key(UUID carrier, int id) {
+			this.carrier = carrier;
+			this.id = id;
+		}
+		
+		@Override
+		public int hashCode() {
+			return carrier.hashCode() * 31 + id;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if(!(object instanceof Key))
+				return false;
+			Key key = (Key) object;
+			return id == key.id && carrier.equals(key.carrier);
+		}
+		
+	}
+
+}
@@ -0,0 +1,158 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import dev.westernpine.pipelines.api.MessageType;
+
+/**
+ * Pipeline metrics recorded with lock free counters, cheap enough to leave on in production.
+ */
+public class RecordingMetrics implements PipelineMetrics {
+	
+	private final LongAdder[] sent = adders(MessageType.values().length);
+	
+	private final LongAdder[] received = adders(MessageType.values().length);
+	
+	private final LongAdder framesSent = new LongAdder();
+	
+	private final LongAdder framesReceived = new LongAdder();
+	
+	private final LongAdder bytesSent = new LongAdder();
+	
+	private final LongAdder bytesReceived = new LongAdder();
+	
+	private final LongAdder timeouts = new LongAdder();
+	
+	private final LongAdder noRoutablePaths = new LongAdder();
+	
+	private final LongAdder decodeErrors = new LongAdder();
+	
+	private final LongAdder abandonedFrames = new LongAdder();
+	
+	private final Histogram roundTripTime = new Histogram();
+	
+	private final Histogram encodeTime = new Histogram();
+	
+	private final Histogram decodeTime = new Histogram();
+	
+	private final Histogram frameSize = new Histogram();
+	
+	private final IntSupplier pendingRequests;
+	
+	/**
+	 * @param pendingRequests Reads the amount of requests awaiting a response.
+	 */
+	public RecordingMetrics(IntSupplier pendingRequests) {
+		this.pendingRequests = pendingRequests;
+	}
+	
+	private static LongAdder[] adders(int length) {
+		LongAdder[] adders = new LongAdder[length];
+		for(int i = 0; i < length; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+	
+	void encoded(MessageType type, int size, long nanos) {
+		sent[type.ordinal()].increment();
+		frameSize.record(size);
+		encodeTime.record(nanos);
+	}
+	
+	void decoded(MessageType type, long nanos) {
+		received[type.ordinal()].increment();
+		decodeTime.record(nanos);
+	}
+	
+	void transmitted(int size) {
+		framesSent.increment();
+		bytesSent.add(size);
+	}
+	
+	void received(int size) {
+		framesReceived.increment();
+		bytesReceived.add(size);
+	}
+	
+	void responded(long nanos) {
+		roundTripTime.record(nanos);
+	}
+	
+	void timedOut() {
+		timeouts.increment();
+	}
+	
+	void unroutable() {
+		noRoutablePaths.increment();
+	}
+	
+	void malformed() {
+		decodeErrors.increment();
+	}
+	
+	void abandoned() {
+		abandonedFrames.increment();
+	}
+	
+	public long getSent(MessageType type) {
+		return sent[type.ordinal()].sum();
+	}
+	
+	public long getReceived(MessageType type) {
+		return received[type.ordinal()].sum();
+	}
+	
+	public long getFramesSent() {
+		return framesSent.sum();
+	}
+	
+	public long getFramesReceived() {
+		return framesReceived.sum();
+	}
+	
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+	
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+	
+	public int getPendingRequests() {
+		return pendingRequests.getAsInt();
+	}
+	
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+	
+	public long getNoRoutablePaths() {
+		return noRoutablePaths.sum();
+	}
+	
+	public long getDecodeErrors() {
+		return decodeErrors.sum();
+	}
+	
+	public long getAbandonedFrames() {
+		return abandonedFrames.sum();
+	}
+	
+	public Histogram getRoundTripTime() {
+		return roundTripTime;
+	}
+	
+	public Histogram getEncodeTime() {
+		return encodeTime;
+	}
+	
+	public Histogram getDecodeTime() {
+		return decodeTime;
+	}
+	
+	public Histogram getFrameSize() {
+		return frameSize;
+	}
+
+}
@@ -0,0 +1,132 @@
+package dev.westernpine.pipelines.lib;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable objects, one per thread so pooling rarely contends.
+ * 
+ * Threads that obtain objects keep their own pool. Objects released on any other thread,
+ * such as a listener's executor, go to a shared pool instead, which threads fall back on once their own is empty,
+ * so objects handed between threads still find their way back to where they are obtained.
+ * 
+ * When {@link PipelineDefaults#LEAK_DETECTION} is enabled, every object handed out is tracked,
+ * and any object garbage collected without being released is reported with where it was obtained.
+ */
+public class Recycler<T> {
+	
+	private Supplier<T> factory;
+	
+	private int capacity;
+	
+	private ThreadLocal<ArrayDeque<T>> pools = new ThreadLocal<>();
+	
+	private ConcurrentLinkedQueue<T> shared = new ConcurrentLinkedQueue<>();
+	
+	private AtomicInteger sharedSize = new AtomicInteger();
+	
+	private ReferenceQueue<Object> collected = new ReferenceQueue<>();
+	
+	private Set<Leak> tracked = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * A bounded pool of reusable objects.
+	 * 
+	 * @param factory Creates a new object when the pool is empty.
+	 * @param capacity The most objects to keep per thread, and shared between threads.
+	 */
+	public Recycler(Supplier<T> factory, int capacity) {
+		this.factory = factory;
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * @return A pooled object, otherwise a new one if the pool is empty.
+	 */
+	public T get() {
+		ArrayDeque<T> pool = pools.get();
+		if(pool == null) {
+			pool = new ArrayDeque<>();
+			pools.set(pool);
+		}
+		T object = pool.pollLast();
+		if(object == null) {
+			object = shared.poll();
+			if(object != null)
+				sharedSize.decrementAndGet();
+		}
+		return object == null ? factory.get() : object;
+	}
+	
+	/**
+	 * Returns an object to the pool, it must not be used again by whoever released it.
+	 * 
+	 * @param object The object to pool.
+	 */
+	public void recycle(T object) {
+		ArrayDeque<T> pool = pools.get();
+		if(pool != null && pool.size() < capacity) {
+			pool.addLast(object);
+			return;
+		}
+		if(sharedSize.incrementAndGet() > capacity) {
+			sharedSize.decrementAndGet();
+			return;
+		}
+		shared.offer(object);
+	}
+	
+	/**
+	 * Starts tracking an object handed out, if leak detection is enabled.
+	 * 
+	 * @param object The object handed out.
+	 * @return The leak to close once the object is released, otherwise null if leak detection is disabled.
+	 */
+	public Leak track(Object object) {
+		if(!PipelineDefaults.LEAK_DETECTION)
+			return null;
+		report();
+		Leak leak = new Leak(object, collected, tracked);
+		tracked.add(leak);
+		return leak;
+	}
+	
+	private void report() {
+		Reference<?> reference;
+		while((reference = collected.poll()) != null) {
+			Leak leak = (Leak) reference;
+			if(tracked.remove(leak))
+				leak.origin.printStackTrace();
+		}
+	}
+	
+	public static class Leak extends WeakReference<Object> {
+		
+		private Set<Leak> tracked;
+		
+		private Throwable origin;
+		
+		private Leak(Object object, ReferenceQueue<Object> queue, Set<Leak> tracked) {
+			super(object, queue);
+			this.tracked = tracked;
+			this.origin = new Throwable("LEAK: " + object.getClass().getSimpleName() + " was garbage collected without being released. It was obtained at:");
+		}
+		
+		/**
+		 * Stops tracking the object, as it has been released.
+		 */
+		public void close() {
+			tracked.remove(this);
+			clear();
+		}
+		
+	}
+
+}
@@ -0,0 +1,217 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+
+/**
+ * Answers identical idempotent requests with one round trip.
+ * 
+ * Requests are identical when they share a carrier, route and payload.
+ * An identical request sent while one is awaiting its response waits on the same response,
+ * and responses are kept for a time to live, evicting the least recently used once full.
+ * Every caller receives its own copy of the response, carrying the UUID of its own request.
+ */
+public class RequestCache {
+	
+	private int maxEntries;
+	
+	private long timeToLive;
+	
+	private LinkedHashMap<Key, CachedResponse> responses;
+	
+	private ConcurrentHashMap<Key, CompletableFuture<Optional<Response>>> inFlight = new ConcurrentHashMap<>();
+	
+	private LongAdder hits = new LongAdder();
+	
+	private LongAdder coalesced = new LongAdder();
+	
+	private LongAdder misses = new LongAdder();
+	
+	/**
+	 * @param maxEntries The most responses kept.
+	 * @param timeToLive How long a response is kept, in nanoseconds.
+	 */
+	public RequestCache(int maxEntries, long timeToLive) {
+		this.maxEntries = maxEntries;
+		this.timeToLive = timeToLive;
+		this.responses = new LinkedHashMap<Key, CachedResponse>(16, 0.75F, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedResponse> eldest) {
+				return size() > RequestCache.this.maxEntries;
+			}
+		};
+	}
+	
+	/**
+	 * Answers a request from the cache, or from an identical request awaiting its response, otherwise sends it.
+	 * 
+	 * @param request The request.
+	 * @param sender Sends the request when it must be.
+	 * @return The response to the request, otherwise empty if timed out.
+	 */
+	public CompletableFuture<Optional<Response>> request(Request request, Function<Request, CompletableFuture<Optional<Response>>> sender) {
+		Key key = Key.of(request);
+		Response cached = lookup(key);
+		if(cached != null) {
+			hits.increment();
+			return CompletableFuture.completedFuture(Optional.of(copy(cached, request)));
+		}
+		CompletableFuture<Optional<Response>> created = new CompletableFuture<>();
+		CompletableFuture<Optional<Response>> existing = inFlight.putIfAbsent(key, created);
+		if(existing != null) {
+			coalesced.increment();
+			return existing.thenApply(response -> response.map(received -> copy(received, request)));
+		}
+		misses.increment();
+		try {
+			sender.apply(request).whenComplete((response, error) -> {
+				if(error != null) {
+					inFlight.remove(key, created);
+					created.completeExceptionally(error);
+					return;
+				}
+				Optional<Response> stored = response.map(received -> copy(received, request));
+				// The cache received the response, and only hands out copies of it.
+				if(PipelineDefaults.RECYCLING)
+					response.ifPresent(Response::release);
+				stored.ifPresent(received -> store(key, received));
+				inFlight.remove(key, created);
+				created.complete(stored);
+			});
+		} catch (RuntimeException e) {
+			inFlight.remove(key, created);
+			created.completeExceptionally(e);
+			throw e;
+		}
+		return created.thenApply(response -> response.map(received -> copy(received, request)));
+	}
+	
+	/**
+	 * Forgets the cached response to a request, so the next identical request is sent.
+	 */
+	public void invalidate(Request request) {
+		synchronized (responses) {
+			responses.remove(Key.of(request));
+		}
+	}
+	
+	/**
+	 * Forgets every cached response.
+	 */
+	public void clear() {
+		synchronized (responses) {
+			responses.clear();
+		}
+	}
+	
+	/**
+	 * @return The amount of responses cached, including any expired but not yet evicted.
+	 */
+	public int size() {
+		synchronized (responses) {
+			return responses.size();
+		}
+	}
+	
+	/**
+	 * @return The amount of requests answered from the cache.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	/**
+	 * @return The amount of requests answered by an identical request awaiting its response.
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+	
+	/**
+	 * @return The amount of requests sent.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+	
+	private Response lookup(Key key) {
+		synchronized (responses) {
+			CachedResponse entry = responses.get(key);
+			if(entry == null)
+				return null;
+			if(System.nanoTime() - entry.stored > timeToLive) {
+				responses.remove(key);
+				return null;
+			}
+			return entry.response;
+		}
+	}
+	
+	private void store(Key key, Response response) {
+		synchronized (responses) {
+			responses.put(key, new CachedResponse(response, System.nanoTime()));
+		}
+	}
+	
+	private static Response copy(Response response, Request request) {
+		return new Response(response.getCarrier(), response.getEncodedPayload().copy(), request.getUuid());
+	}
+	
+	private static class CachedResponse {
+		
+		private Response response;
+		
+		private long stored;
+		
+		private CachedResponse(Response response, long stored) {
+			this.response = response;
+			this.stored = stored;
+		}
+		
+	}
+	
+	/**
+	 * The carrier, route and payload of a request, compared by content.
+	 */
+	private static class Key {
+		
+		private byte[] content;
+		
+		private int hash;
+		
+		private Key(byte[] content) {
+			this.content = content;
+			this.hash = Arrays.hashCode(content);
+		}
+		
+		private static Key of(Request request) {
+			FrameWriter writer = new FrameWriter();
+			if(request.getCarrier() != null)
+				writer.writeByte(1).writeUUID(request.getCarrier());
+			else
+				writer.writeByte(0);
+			writer.writeByte(request.isRouted() ? 1 : 0).writeInt(request.getRouteId());
+			request.getEncodedPayload().writeTo(writer);
+			return new Key(writer.toByteArray());
+		}
+		
+		public int hashCode() {
+			return hash;
+		}
+		
+		public boolean equals(Object other) {
+			return other instanceof Key && hash == ((Key) other).hash && Arrays.equals(content, ((Key) other).content);
+		}
+		
+	}
+
+}
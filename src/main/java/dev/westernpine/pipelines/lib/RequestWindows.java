@@ -0,0 +1,301 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the requests awaiting a response from each destination, queueing the rest locally until responses make room.
+ * 
+ * A window limits both the amount of requests and the bytes of requests awaiting a response,
+ * though a request is always let through when nothing else is awaited, however large it is.
+ * Queued requests keep their timeouts, and are skipped once a response could no longer arrive in time,
+ * so overload shows as bounded waits rather than a flood of requests that time out anyway.
+ * 
+ * Adaptive windows size themselves additive increase, multiplicative decrease:
+ * every timely response grows the window by one request per window's worth of responses,
+ * and a timeout, or a round trip over twice the shortest recently seen, halves it at most once per round trip.
+ */
+public class RequestWindows {
+	
+	private static final Object NO_DESTINATION = new Object();
+	
+	private static final long IDLE = TimeUnit.MINUTES.toNanos(1);
+	
+	private static final long MIN_RTT_PERIOD = TimeUnit.SECONDS.toNanos(10);
+	
+	private int initialRequests;
+	
+	private int minRequests;
+	
+	private int maxRequests;
+	
+	private long maxBytes;
+	
+	private boolean adaptive;
+	
+	private ConcurrentHashMap<Object, Window> windows = new ConcurrentHashMap<>();
+	
+	private AtomicInteger submissions = new AtomicInteger();
+	
+	private RequestWindows(int initialRequests, int minRequests, int maxRequests, long maxBytes, boolean adaptive) {
+		if(minRequests < 1 || initialRequests < minRequests || maxRequests < initialRequests || maxBytes < 1)
+			throw new IllegalArgumentException("Windows must allow at least one request, and start between their minimum and maximum!");
+		this.initialRequests = initialRequests;
+		this.minRequests = minRequests;
+		this.maxRequests = maxRequests;
+		this.maxBytes = maxBytes;
+		this.adaptive = adaptive;
+	}
+	
+	/**
+	 * Windows of a fixed size.
+	 * 
+	 * @param maxRequests The most requests awaiting a response from each destination.
+	 * @param maxBytes The most bytes of requests awaiting a response from each destination.
+	 */
+	public static RequestWindows fixed(int maxRequests, long maxBytes) {
+		return new RequestWindows(maxRequests, maxRequests, maxRequests, maxBytes, false);
+	}
+	
+	/**
+	 * Windows sized from the round trip times and timeouts of each destination.
+	 * 
+	 * @param initialRequests The size each window starts at.
+	 * @param minRequests The smallest a window shrinks to.
+	 * @param maxRequests The largest a window grows to.
+	 * @param maxBytes The most bytes of requests awaiting a response from each destination.
+	 */
+	public static RequestWindows adaptive(int initialRequests, int minRequests, int maxRequests, long maxBytes) {
+		return new RequestWindows(initialRequests, minRequests, maxRequests, maxBytes, true);
+	}
+	
+	/**
+	 * Sends a request now if its destination's window has room, otherwise once responses make room.
+	 * A request sent later that fails to send completes its response exceptionally.
+	 * 
+	 * @param destination Where the request is going, such as its carrier, or null for a pipeline with one destination.
+	 * @param bytes The size of the request.
+	 * @param deadline When the request times out, in {@link System#nanoTime()}.
+	 * @param response The response to the request, completed when it arrives or times out.
+	 * @param send Sends the request.
+	 * 
+	 * @throws RuntimeException If the request is sent now, and fails to send.
+	 */
+	public void submit(Object destination, int bytes, long deadline, CompletableFuture<?> response, Runnable send) {
+		if((submissions.incrementAndGet() & 4095) == 0)
+			prune();
+		Object key = destination == null ? NO_DESTINATION : destination;
+		Pending pending = new Pending(bytes, deadline, response, send);
+		while(true) {
+			Window window = windows.computeIfAbsent(key, k -> new Window());
+			synchronized (window) {
+				// Pruned since it was looked up, so a new window takes its place.
+				if(window.pruned)
+					continue;
+				window.lastUsed = System.nanoTime();
+				if(!window.queue.isEmpty() || !window.hasRoom(bytes)) {
+					window.queue.add(pending);
+					return;
+				}
+				window.acquire(bytes);
+			}
+			start(window, pending);
+			return;
+		}
+	}
+	
+	/**
+	 * @return The size of a destination's window, the amount of requests it lets await a response.
+	 */
+	public int getLimit(Object destination) {
+		Window window = windows.get(destination == null ? NO_DESTINATION : destination);
+		if(window == null)
+			return initialRequests;
+		synchronized (window) {
+			return (int) window.limit;
+		}
+	}
+	
+	/**
+	 * @return The amount of requests awaiting a response, across every destination.
+	 */
+	public int getInFlight() {
+		int inFlight = 0;
+		for(Window window : windows.values()) {
+			synchronized (window) {
+				inFlight += window.requests;
+			}
+		}
+		return inFlight;
+	}
+	
+	/**
+	 * @return The amount of requests queued until their window has room, across every destination.
+	 */
+	public int getQueued() {
+		int queued = 0;
+		for(Window window : windows.values()) {
+			synchronized (window) {
+				queued += window.queue.size();
+			}
+		}
+		return queued;
+	}
+	
+	private void start(Window window, Pending pending) {
+		long sent = System.nanoTime();
+		pending.response.whenComplete((result, error) -> release(window, pending, System.nanoTime() - sent, error == null && isPresent(result)));
+		try {
+			pending.send.run();
+		} catch (RuntimeException e) {
+			release(window, pending, -1, false);
+			throw e;
+		}
+	}
+	
+	private static boolean isPresent(Object result) {
+		return !(result instanceof Optional) || ((Optional<?>) result).isPresent();
+	}
+	
+	/**
+	 * Frees the room a request took in its window, and sends the queued requests that now fit.
+	 * 
+	 * @param rtt The round trip time of the request, otherwise negative if it was never sent.
+	 * @param answered True if the request was answered, rather than timing out.
+	 */
+	private void release(Window window, Pending pending, long rtt, boolean answered) {
+		ArrayDeque<Pending> ready = null;
+		synchronized (window) {
+			if(pending.released)
+				return;
+			pending.released = true;
+			window.requests--;
+			window.bytes -= pending.bytes;
+			if(answered && rtt >= 0)
+				window.smoothedRtt = window.smoothedRtt == 0 ? rtt : window.smoothedRtt + (rtt - window.smoothedRtt) / 8;
+			if(adaptive && rtt >= 0)
+				window.adapt(rtt, answered);
+			long now = System.nanoTime();
+			Pending next;
+			while((next = window.queue.peek()) != null) {
+				if(next.response.isDone() || now + window.smoothedRtt >= next.deadline) {
+					window.queue.poll();
+					continue;
+				}
+				if(!window.hasRoom(next.bytes))
+					break;
+				window.queue.poll();
+				window.acquire(next.bytes);
+				if(ready == null)
+					ready = new ArrayDeque<>();
+				ready.add(next);
+			}
+		}
+		if(ready == null)
+			return;
+		for(Pending queued : ready) {
+			try {
+				start(window, queued);
+			} catch (RuntimeException e) {
+				queued.response.completeExceptionally(e);
+			}
+		}
+	}
+	
+	/**
+	 * Forgets windows idle for a minute, with nothing awaited or queued.
+	 */
+	private void prune() {
+		long now = System.nanoTime();
+		for(Map.Entry<Object, Window> entry : windows.entrySet()) {
+			Window window = entry.getValue();
+			synchronized (window) {
+				if(window.requests == 0 && window.queue.isEmpty() && now - window.lastUsed > IDLE) {
+					window.pruned = true;
+					windows.remove(entry.getKey(), window);
+				}
+			}
+		}
+	}
+	
+	private class Window {
+		
+		private double limit = initialRequests;
+		
+		private int requests;
+		
+		private long bytes;
+		
+		private ArrayDeque<Pending> queue = new ArrayDeque<>();
+		
+		private long lastUsed = System.nanoTime();
+		
+		private long minRtt = Long.MAX_VALUE;
+		
+		private long previousMinRtt = Long.MAX_VALUE;
+		
+		private long minRttSince = System.nanoTime();
+		
+		private long lastDecrease;
+		
+		private long smoothedRtt;
+		
+		private boolean pruned;
+		
+		private boolean hasRoom(int size) {
+			return requests == 0 || (requests < (int) limit && bytes + size <= maxBytes);
+		}
+		
+		private void acquire(int size) {
+			requests++;
+			bytes += size;
+		}
+		
+		private void adapt(long rtt, boolean answered) {
+			long now = System.nanoTime();
+			if(now - minRttSince > MIN_RTT_PERIOD) {
+				previousMinRtt = minRtt;
+				minRtt = Long.MAX_VALUE;
+				minRttSince = now;
+			}
+			if(answered)
+				minRtt = Math.min(minRtt, rtt);
+			long baseline = Math.min(minRtt, previousMinRtt);
+			boolean congested = !answered || (baseline != Long.MAX_VALUE && rtt > baseline * 2);
+			if(!congested) {
+				limit = Math.min(maxRequests, limit + 1 / limit);
+			} else if(now - lastDecrease > (baseline == Long.MAX_VALUE ? rtt : baseline)) {
+				limit = Math.max(minRequests, limit / 2);
+				lastDecrease = now;
+			}
+		}
+		
+	}
+	
+	private static class Pending {
+		
+		private int bytes;
+		
+		private long deadline;
+		
+		private CompletableFuture<?> response;
+		
+		private Runnable send;
+		
+		private boolean released;
+		
+		private Pending(int bytes, long deadline, CompletableFuture<?> response, Runnable send) {
+			this.bytes = bytes;
+			this.deadline = deadline;
+			this.response = response;
+			this.send = send;
+		}
+		
+	}
+
+}
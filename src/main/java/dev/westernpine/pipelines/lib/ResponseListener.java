@@ -1,36 +1,53 @@
 package dev.westernpine.pipelines.lib;
 
-import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.lib.TimingWheel.Timeout;
 
 public class ResponseListener {
 	
 	private CompletableFuture<Optional<Response>> responseHandler;
 	
-	private Instant creation;
+	private volatile Timeout timeout;
+	
+	private final long created = System.nanoTime();
 	
 	public ResponseListener(CompletableFuture<Optional<Response>> responseHandler) {
 		this.responseHandler = responseHandler;
-		this.creation = Instant.now();
 	}
 	
 	public CompletableFuture<Optional<Response>> getResponseHandler() {
 		return this.responseHandler;
 	}
 	
-	public boolean isExpired() {
-		return this.creation.isBefore(Instant.now().minusMillis(PipelineDefaults.CACHE_TIME));
+	/**
+	 * @return When the request was registered, in {@link System#nanoTime()}.
+	 */
+	public long getCreated() {
+		return this.created;
+	}
+	
+	public void setTimeout(Timeout timeout) {
+		this.timeout = timeout;
+	}
+	
+	public void cancel() {
+		if(timeout != null)
+			timeout.cancel();
 	}
 	
 	public void handle() {
 		this.responseHandler.complete(Optional.empty());
 	}
 	
-	public void handle(Response response) {
-		this.responseHandler.complete(Optional.ofNullable(response));
+	/**
+	 * @return True if the response completed the request, rather than it already being complete.
+	 */
+	public boolean handle(Response response) {
+		cancel();
+		return this.responseHandler.complete(Optional.ofNullable(response));
 	}
 
 }
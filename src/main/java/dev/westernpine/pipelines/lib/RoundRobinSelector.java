@@ -0,0 +1,40 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Takes turns between the online connections.
+ * 
+ * Frames over different connections arrive in no particular order, so this doesn't suit streams,
+ * or anything relying on the order frames are sent in. {@link StickySelector} keeps frames in order.
+ */
+public class RoundRobinSelector extends TrackingCarrierSelector {
+	
+	private final AtomicInteger turn = new AtomicInteger();
+	
+	public RoundRobinSelector() {
+		this(Duration.ofMillis(100));
+	}
+	
+	/**
+	 * @param halfLife How long it takes for half of the bytes sent over a connection to no longer count as in flight.
+	 */
+	public RoundRobinSelector(Duration halfLife) {
+		super(halfLife);
+	}
+	
+	protected <T> T choose(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize, long now) {
+		int index = Math.floorMod(turn.getAndIncrement(), carriers.size());
+		Iterator<? extends T> iterator = carriers.iterator();
+		T carrier = iterator.next();
+		for(int i = 0; i < index && iterator.hasNext(); i++)
+			carrier = iterator.next();
+		return carrier;
+	}
+
+}
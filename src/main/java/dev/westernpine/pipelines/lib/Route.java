@@ -0,0 +1,34 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * A named route, and the listeners registered to it.
+ * 
+ * Routes travel as a 32 bit id derived from their name, so both ends agree on it without a handshake.
+ */
+public class Route<T> {
+	
+	/**
+	 * @param name The name of the route.
+	 * @return The id the route travels as.
+	 */
+	public static int id(String name) {
+		return name.hashCode();
+	}
+	
+	private String name;
+	
+	private ListenerRegistry<T> listeners = new ListenerRegistry<>();
+	
+	public Route(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return this.name;
+	}
+	
+	public ListenerRegistry<T> getListeners() {
+		return this.listeners;
+	}
+
+}
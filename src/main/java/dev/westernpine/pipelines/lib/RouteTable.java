@@ -0,0 +1,93 @@
+package dev.westernpine.pipelines.lib;
+
+/**
+ * A map from int route ids to values, read without locks or boxing.
+ * 
+ * Lookups probe an immutable open addressed snapshot, writes copy the snapshot,
+ * as routes are registered rarely and looked up for every message.
+ */
+public class RouteTable<V> {
+	
+	private volatile Snapshot snapshot = new Snapshot(16);
+	
+	/**
+	 * @param id The route id.
+	 * @return The value registered for the route id, otherwise null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int id) {
+		Snapshot snapshot = this.snapshot;
+		int mask = snapshot.ids.length - 1;
+		for(int index = mix(id) & mask; snapshot.values[index] != null; index = (index + 1) & mask)
+			if(snapshot.ids[index] == id)
+				return (V) snapshot.values[index];
+		return null;
+	}
+	
+	/**
+	 * Registers a value for a route id, replacing any value already registered.
+	 * 
+	 * @param id The route id.
+	 * @param value The value.
+	 */
+	public synchronized void put(int id, V value) {
+		Snapshot current = this.snapshot;
+		int capacity = current.ids.length;
+		if((current.size + 1) * 2 > capacity)
+			capacity <<= 1;
+		Snapshot next = new Snapshot(capacity);
+		for(int i = 0; i < current.ids.length; i++)
+			if(current.values[i] != null && current.ids[i] != id)
+				next.insert(current.ids[i], current.values[i]);
+		next.insert(id, value);
+		this.snapshot = next;
+	}
+	
+	/**
+	 * Removes the value registered for a route id.
+	 * 
+	 * @param id The route id.
+	 */
+	public synchronized void remove(int id) {
+		Snapshot current = this.snapshot;
+		Snapshot next = new Snapshot(current.ids.length);
+		for(int i = 0; i < current.ids.length; i++)
+			if(current.values[i] != null && current.ids[i] != id)
+				next.insert(current.ids[i], current.values[i]);
+		this.snapshot = next;
+	}
+	
+	/**
+	 * Spreads the bits of a route id, as string hash codes cluster in their low bits.
+	 */
+	private static int mix(int id) {
+		int hash = id * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static class Snapshot {
+		
+		private int[] ids;
+		
+		private Object[] values;
+		
+		private int size;
+		
+		private Snapshot(int capacity) {
+			this.ids = new int[capacity];
+			this.values = new Object[capacity];
+		}
+		
+		private void insert(int id, Object value) {
+			int mask = ids.length - 1;
+			int index = mix(id) & mask;
+			while(values[index] != null)
+				index = (index + 1) & mask;
+			ids[index] = id;
+			values[index] = value;
+			size++;
+		}
+		
+	}
+
+}
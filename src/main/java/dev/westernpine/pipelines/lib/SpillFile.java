@@ -0,0 +1,176 @@
+package dev.westernpine.pipelines.lib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * A ring buffer of frames in a memory mapped file, holding queued frames that do not fit in memory.
+ * 
+ * Each frame is stored as its carrier as two longs, its length as an int, and then its bytes.
+ * The file is a scratch space for a single run, it is not read back after a restart.
+ */
+public class SpillFile implements AutoCloseable {
+	
+	private static final int HEADER_BYTES = 20;
+	
+	private static final UUID NO_CARRIER = new UUID(0, 0);
+	
+	private FileChannel channel;
+	
+	private MappedByteBuffer buffer;
+	
+	private int capacity;
+	
+	private int head;
+	
+	private int used;
+	
+	private int frames;
+	
+	/**
+	 * @param path The file to map, it is created or overwritten.
+	 * @param capacity The size of the file in bytes.
+	 * 
+	 * @throws IOException If the file could not be mapped.
+	 */
+	public SpillFile(Path path, int capacity) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * @return True if the frame was added, otherwise false if there is no room for it.
+	 */
+	public boolean offer(UUID carrier, byte[] frame) {
+		if(HEADER_BYTES + frame.length > capacity - used)
+			return false;
+		UUID key = carrier == null ? NO_CARRIER : carrier;
+		byte[] header = new FrameWriter(HEADER_BYTES).writeUUID(key).writeInt(frame.length).toByteArray();
+		int tail = (head + used) % capacity;
+		tail = put(tail, header);
+		put(tail, frame);
+		used += HEADER_BYTES + frame.length;
+		frames++;
+		return true;
+	}
+	
+	/**
+	 * @return The size of the oldest frame with its header, otherwise zero if empty.
+	 */
+	public int peekSize() {
+		if(frames == 0)
+			return 0;
+		byte[] header = new byte[HEADER_BYTES];
+		get(head, header);
+		FrameReader reader = new FrameReader(header);
+		reader.readUUID();
+		return HEADER_BYTES + reader.readInt();
+	}
+	
+	/**
+	 * Removes the oldest frame.
+	 * 
+	 * @param into Receives the carrier and the frame.
+	 * @return False if empty.
+	 */
+	public boolean poll(Entry into) {
+		if(frames == 0)
+			return false;
+		byte[] header = new byte[HEADER_BYTES];
+		int position = get(head, header);
+		FrameReader reader = new FrameReader(header);
+		UUID carrier = reader.readUUID();
+		byte[] frame = new byte[reader.readInt()];
+		get(position, frame);
+		head = (head + HEADER_BYTES + frame.length) % capacity;
+		used -= HEADER_BYTES + frame.length;
+		frames--;
+		into.carrier = NO_CARRIER.equals(carrier) ? null : carrier;
+		into.frame = frame;
+		return true;
+	}
+	
+	public boolean isEmpty() {
+		return frames == 0;
+	}
+	
+	/**
+	 * @return True if a frame of the given size fits in the file once it is empty.
+	 */
+	public boolean fits(int frameSize) {
+		return frameSize <= capacity - HEADER_BYTES;
+	}
+	
+	/**
+	 * @return The amount of frames held.
+	 */
+	public int size() {
+		return frames;
+	}
+	
+	/**
+	 * @return The amount of bytes held, including headers.
+	 */
+	public int getUsed() {
+		return used;
+	}
+	
+	public void clear() {
+		head = 0;
+		used = 0;
+		frames = 0;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		clear();
+		channel.close();
+	}
+	
+	private int put(int position, byte[] bytes) {
+		int first = Math.min(bytes.length, capacity - position);
+		ByteBuffer view = buffer.duplicate();
+		view.position(position);
+		view.put(bytes, 0, first);
+		view.position(0);
+		view.put(bytes, first, bytes.length - first);
+		return (position + bytes.length) % capacity;
+	}
+	
+	private int get(int position, byte[] bytes) {
+		int first = Math.min(bytes.length, capacity - position);
+		ByteBuffer view = buffer.duplicate();
+		view.position(position);
+		view.get(bytes, 0, first);
+		view.position(0);
+		view.get(bytes, first, bytes.length - first);
+		return (position + bytes.length) % capacity;
+	}
+	
+	/**
+	 * A frame taken from the file.
+	 */
+	public static class Entry {
+		
+		private UUID carrier;
+		
+		private byte[] frame;
+		
+		public UUID getCarrier() {
+			return this.carrier;
+		}
+		
+		public byte[] getFrame() {
+			return this.frame;
+		}
+		
+	}
+
+}
@@ -0,0 +1,41 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Sends over the same connection for as long as it stays online, only moving to another once it leaves.
+ * 
+ * Frames over one connection arrive in the order they were sent, so this keeps messages in order,
+ * and a stream's credits and end behind the request and responses before them.
+ * Frames sent before the connection left may be lost with it.
+ */
+public class StickySelector extends TrackingCarrierSelector {
+	
+	private volatile UUID current;
+	
+	public StickySelector() {
+		this(Duration.ofMillis(100));
+	}
+	
+	/**
+	 * @param halfLife How long it takes for half of the bytes sent over a connection to no longer count as in flight.
+	 */
+	public StickySelector(Duration halfLife) {
+		super(halfLife);
+	}
+	
+	protected <T> T choose(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize, long now) {
+		UUID current = this.current;
+		if(current != null)
+			for(T carrier : carriers)
+				if(current.equals(ids.apply(carrier)))
+					return carrier;
+		T carrier = carriers.iterator().next();
+		this.current = ids.apply(carrier);
+		return carrier;
+	}
+
+}
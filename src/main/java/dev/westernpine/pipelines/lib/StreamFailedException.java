@@ -0,0 +1,11 @@
+package dev.westernpine.pipelines.lib;
+
+public class StreamFailedException extends Exception {
+	
+	private static final long serialVersionUID = 1L;
+
+	public StreamFailedException(String reason) {
+		super("The stream of responses failed: " + reason);
+	}
+
+}
@@ -0,0 +1,61 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.UUID;
+
+import dev.westernpine.pipelines.api.MessageType;
+
+/**
+ * Controls a stream of responses: credits and cancellations from the requester, and the end from the responder.
+ */
+public class StreamSignal {
+	
+	private MessageType type;
+	
+	private UUID uuid;
+	
+	private long credits;
+	
+	private String error;
+	
+	/**
+	 * @param type {@link MessageType#CREDIT}, {@link MessageType#CANCEL} or {@link MessageType#END}.
+	 * @param uuid The UUID of the streamed request.
+	 * @param credits The amount of responses granted, for credit signals.
+	 * @param error Why the stream failed, for end signals of failed streams, otherwise null.
+	 */
+	public StreamSignal(MessageType type, UUID uuid, long credits, String error) {
+		this.type = type;
+		this.uuid = uuid;
+		this.credits = credits;
+		this.error = error;
+	}
+	
+	public static StreamSignal credit(UUID uuid, long credits) {
+		return new StreamSignal(MessageType.CREDIT, uuid, credits, null);
+	}
+	
+	public static StreamSignal cancel(UUID uuid) {
+		return new StreamSignal(MessageType.CANCEL, uuid, 0, null);
+	}
+	
+	public static StreamSignal end(UUID uuid, String error) {
+		return new StreamSignal(MessageType.END, uuid, 0, error);
+	}
+	
+	public MessageType getType() {
+		return this.type;
+	}
+	
+	public UUID getUuid() {
+		return this.uuid;
+	}
+	
+	public long getCredits() {
+		return this.credits;
+	}
+	
+	public String getError() {
+		return this.error;
+	}
+
+}
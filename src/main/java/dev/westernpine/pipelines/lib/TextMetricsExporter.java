@@ -0,0 +1,72 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import dev.westernpine.pipelines.api.MessageType;
+
+/**
+ * Formats the metrics of pipelines as plain text, such as for a stats command.
+ */
+public class TextMetricsExporter implements MetricsExporter {
+	
+	private Map<String, PipelineMetrics> pipelines = new ConcurrentSkipListMap<>();
+	
+	public void register(String name, PipelineMetrics metrics) {
+		pipelines.put(name, metrics);
+	}
+	
+	public void unregister(String name) {
+		pipelines.remove(name);
+	}
+	
+	/**
+	 * @return The metrics of every registered pipeline, one line per metric.
+	 */
+	public String dump() {
+		StringBuilder builder = new StringBuilder();
+		for(Entry<String, PipelineMetrics> entry : pipelines.entrySet())
+			format(builder, entry.getKey(), entry.getValue());
+		return builder.toString();
+	}
+	
+	/**
+	 * @return The metrics of a single pipeline, one line per metric.
+	 */
+	public static String format(String name, PipelineMetrics metrics) {
+		StringBuilder builder = new StringBuilder();
+		format(builder, name, metrics);
+		return builder.toString();
+	}
+	
+	private static void format(StringBuilder builder, String name, PipelineMetrics metrics) {
+		builder.append(name).append('\n');
+		for(MessageType type : new MessageType[] {MessageType.MESSAGE, MessageType.REQUEST, MessageType.RESPONSE})
+			builder.append("  ").append(type.name().toLowerCase()).append("s: ")
+					.append(metrics.getSent(type)).append(" sent, ")
+					.append(metrics.getReceived(type)).append(" received\n");
+		builder.append("  frames: ").append(metrics.getFramesSent()).append(" sent, ").append(metrics.getFramesReceived()).append(" received\n");
+		builder.append("  bytes: ").append(metrics.getBytesSent()).append(" sent, ").append(metrics.getBytesReceived()).append(" received\n");
+		builder.append("  requests: ").append(metrics.getPendingRequests()).append(" pending, ").append(metrics.getTimeouts()).append(" timed out\n");
+		builder.append("  errors: ").append(metrics.getNoRoutablePaths()).append(" unroutable, ").append(metrics.getDecodeErrors()).append(" malformed, ").append(metrics.getAbandonedFrames()).append(" abandoned\n");
+		time(builder, "round trip", metrics.getRoundTripTime());
+		time(builder, "encode", metrics.getEncodeTime());
+		time(builder, "decode", metrics.getDecodeTime());
+		Histogram size = metrics.getFrameSize();
+		builder.append("  frame size: ").append(String.format("mean %.0fB, p50 %dB, p99 %dB, max %dB",
+				size.getMean(), size.getPercentile(50), size.getPercentile(99), size.getMax())).append('\n');
+	}
+	
+	private static void time(StringBuilder builder, String label, Histogram histogram) {
+		builder.append("  ").append(label).append(": ").append(String.format("mean %.3fms, p50 %.3fms, p99 %.3fms, p99.9 %.3fms, max %.3fms",
+				millis(histogram.getMean()), millis(histogram.getPercentile(50)), millis(histogram.getPercentile(99)),
+				millis(histogram.getPercentile(99.9)), millis(histogram.getMax()))).append('\n');
+	}
+	
+	private static double millis(double nanos) {
+		return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
@@ -0,0 +1,227 @@
+package dev.westernpine.pipelines.lib;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel, scheduling and cancelling timeouts in constant time.
+ * 
+ * Timeouts are bucketed by the tick they expire on, and a single daemon thread
+ * advances the wheel one tick at a time, only visiting the bucket for that tick.
+ * Tasks run on the wheel thread, so they should be short and never block.
+ */
+public class TimingWheel {
+	
+	private final long tickNanos;
+	
+	private final Bucket[] wheel;
+	
+	private final int mask;
+	
+	private final long startTime = System.nanoTime();
+	
+	private final Queue<Entry> additions = new ConcurrentLinkedQueue<>();
+	
+	private final Queue<Entry> cancellations = new ConcurrentLinkedQueue<>();
+	
+	private final AtomicBoolean started = new AtomicBoolean();
+	
+	private final Thread worker;
+	
+	private volatile boolean running = true;
+	
+	private long tick;
+	
+	/**
+	 * A hashed timing wheel, the worker thread is started on the first schedule.
+	 * 
+	 * @param tickDuration The resolution of the wheel.
+	 * @param unit The unit of the tick duration.
+	 * @param wheelSize The amount of buckets, rounded up to a power of two.
+	 */
+	public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+		this.tickNanos = Math.max(unit.toNanos(tickDuration), 1);
+		int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+		this.wheel = new Bucket[size];
+		for(int i = 0; i < size; i++)
+			this.wheel[i] = new Bucket();
+		this.mask = size - 1;
+		this.worker = new Thread(this::run, "Pipeline Timer");
+		this.worker.setDaemon(true);
+	}
+	
+	/**
+	 * Schedules a task to run once the delay has passed.
+	 * 
+	 * @param task The task to run.
+	 * @param delay The delay before running the task.
+	 * @param unit The unit of the delay.
+	 * @return The timeout, used to cancel the task.
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		if(!running)
+			throw new IllegalStateException("The timing wheel has been stopped.");
+		if(started.compareAndSet(false, true))
+			worker.start();
+		Entry entry = new Entry(task, System.nanoTime() - startTime + Math.max(unit.toNanos(delay), 0));
+		additions.add(entry);
+		return entry;
+	}
+	
+	/**
+	 * Stops the worker thread, pending timeouts will never run.
+	 */
+	public void stop() {
+		running = false;
+	}
+	
+	private void run() {
+		while(running) {
+			awaitTick();
+			Entry cancelled;
+			while((cancelled = cancellations.poll()) != null)
+				cancelled.unlink();
+			transferAdditions();
+			wheel[(int) (tick & mask)].expire();
+			tick++;
+		}
+	}
+	
+	private void awaitTick() {
+		long deadline = tickNanos * (tick + 1);
+		long now;
+		while((now = System.nanoTime() - startTime) < deadline)
+			LockSupport.parkNanos(deadline - now);
+	}
+	
+	private void transferAdditions() {
+		Entry entry;
+		while((entry = additions.poll()) != null) {
+			if(entry.state.get() == Entry.CANCELLED)
+				continue;
+			long ticks = entry.deadline / tickNanos;
+			entry.rounds = (ticks - tick) / wheel.length;
+			wheel[(int) (Math.max(ticks, tick) & mask)].add(entry);
+		}
+	}
+	
+	public interface Timeout {
+		
+		/**
+		 * Cancels the timeout, so its task never runs.
+		 * 
+		 * @return True if the timeout was cancelled, false if it already ran or was cancelled.
+		 */
+		public boolean cancel();
+		
+	}
+	
+	private final class Entry implements Timeout {
+		
+		static final int PENDING = 0;
+		static final int CANCELLED = 1;
+		static final int EXPIRED = 2;
+		
+		private final Runnable task;
+		
+		private final long deadline;
+		
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+		
+		private long rounds;
+		
+		private Bucket bucket;
+		
+		private Entry next;
+		
+		private Entry previous;
+		
+		private Entry(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+		
+		public boolean cancel() {
+			if(!state.compareAndSet(PENDING, CANCELLED))
+				return false;
+			cancellations.add(this);
+			return true;
+		}
+		
+		private void unlink() {
+			if(bucket != null)
+				bucket.remove(this);
+		}
+		
+		private void expire() {
+			if(!state.compareAndSet(PENDING, EXPIRED))
+				return;
+			try {
+				task.run();
+			} catch (StackOverflowError e) {
+				// Already unwound by the time it's caught, so the wheel can carry on.
+				e.printStackTrace();
+			} catch (VirtualMachineError e) {
+				throw e;
+			} catch (Throwable e) {
+				// Anything else would kill the wheel's only thread, and every timeout with it.
+				e.printStackTrace();
+			}
+		}
+		
+	}
+	
+	private static final class Bucket {
+		
+		private Entry head;
+		
+		private Entry tail;
+		
+		private void add(Entry entry) {
+			entry.bucket = this;
+			if(head == null) {
+				head = tail = entry;
+			} else {
+				tail.next = entry;
+				entry.previous = tail;
+				tail = entry;
+			}
+		}
+		
+		private void expire() {
+			Entry entry = head;
+			while(entry != null) {
+				Entry next = entry.next;
+				if(entry.rounds <= 0) {
+					remove(entry);
+					entry.expire();
+				} else if(entry.state.get() == Entry.CANCELLED) {
+					remove(entry);
+				} else {
+					entry.rounds--;
+				}
+				entry = next;
+			}
+		}
+		
+		private void remove(Entry entry) {
+			if(entry.previous != null)
+				entry.previous.next = entry.next;
+			if(entry.next != null)
+				entry.next.previous = entry.previous;
+			if(entry == head)
+				head = entry.next;
+			if(entry == tail)
+				tail = entry.previous;
+			entry.previous = null;
+			entry.next = null;
+			entry.bucket = null;
+		}
+		
+	}
+
+}
@@ -0,0 +1,75 @@
+package dev.westernpine.pipelines.lib;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A carrier selector accounting every frame to the connection that carried it.
+ * 
+ * Connections left unused for a minute are forgotten, so players that have left do not pile up.
+ */
+public abstract class TrackingCarrierSelector implements CarrierSelector {
+	
+	private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+	
+	private static final int PRUNE_INTERVAL = 4096;
+	
+	private final long halfLifeNanos;
+	
+	private final ConcurrentHashMap<UUID, CarrierLoad> loads = new ConcurrentHashMap<>();
+	
+	private final AtomicInteger selections = new AtomicInteger();
+	
+	/**
+	 * @param halfLife How long it takes for half of the bytes sent over a connection to no longer count as in flight.
+	 */
+	protected TrackingCarrierSelector(Duration halfLife) {
+		this.halfLifeNanos = halfLife.toNanos();
+	}
+	
+	/**
+	 * Chooses a connection from those online, which are never empty.
+	 * 
+	 * @param now The current {@link System#nanoTime()}.
+	 */
+	protected abstract <T> T choose(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize, long now);
+	
+	public <T> T select(Collection<? extends T> carriers, Function<? super T, UUID> ids, int frameSize) {
+		if(carriers.isEmpty())
+			return null;
+		long now = System.nanoTime();
+		T carrier = choose(carriers, ids, frameSize, now);
+		getLoad(ids.apply(carrier)).record(frameSize, now);
+		if(selections.incrementAndGet() % PRUNE_INTERVAL == 0)
+			loads.values().removeIf(load -> now - load.getLastUsed() > IDLE_NANOS);
+		return carrier;
+	}
+	
+	/**
+	 * @return What has been sent over the connection.
+	 */
+	public CarrierLoad getLoad(UUID carrier) {
+		return loads.computeIfAbsent(carrier, k -> new CarrierLoad(halfLifeNanos));
+	}
+	
+	/**
+	 * @return What has been sent over every connection used in the last minute.
+	 */
+	public Map<UUID, CarrierLoad> getLoads() {
+		return loads;
+	}
+	
+	/**
+	 * @return The load of a connection, without accounting a connection never used.
+	 */
+	protected CarrierLoad peekLoad(UUID carrier) {
+		return loads.get(carrier);
+	}
+
+}
@@ -0,0 +1,383 @@
+package dev.westernpine.pipelines.lib;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import dev.westernpine.pipelines.api.Message;
+import dev.westernpine.pipelines.api.Request;
+import dev.westernpine.pipelines.api.Response;
+
+/**
+ * Writes the fields of a type into a payload, in declaration order, and reads them back.
+ * 
+ * The fields are found once, when the codec is built, and accessed through method handles from then on.
+ * Static and transient fields are skipped, and inherited fields come first, from the topmost superclass down.
+ * The type must have a no argument constructor, or a constructor taking every field in that order, as records do.
+ * Primitives, Strings, UUIDs, enums and fields of other codable types are written compactly,
+ * any other field, including one of a type that can't be constructed from its fields, is written as a payload element,
+ * which may fall back to java serialization.
+ */
+public class TypedCodec<T> {
+	
+	private static final int BOOLEAN = 0, BYTE = 1, SHORT = 2, CHAR = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7, STRING = 8, UNIQUE_ID = 9, ENUM = 10, NESTED = 11, OBJECT = 12;
+	
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	
+	private Class<T> type;
+	
+	private String route;
+	
+	private FieldCodec[] fields;
+	
+	private MethodHandle constructor;
+	
+	private boolean allArguments;
+	
+	private TypedCodec(Class<T> type, String route) {
+		this.type = type;
+		this.route = route;
+	}
+	
+	/**
+	 * Builds the codec for a type, travelling on a route named after the type.
+	 * 
+	 * @throws IllegalArgumentException If the type can't be constructed from its fields, inherits fields from a JDK class, or is a pipeline message.
+	 */
+	public static <T> TypedCodec<T> of(Class<T> type) {
+		return of(type, type.getName());
+	}
+	
+	/**
+	 * Builds the codec for a type.
+	 * 
+	 * @param type The type.
+	 * @param route The route values of the type travel on, which both pipelines must agree on.
+	 * 
+	 * @throws IllegalArgumentException If the type can't be constructed from its fields, inherits fields from a JDK class, or is a pipeline message.
+	 */
+	public static <T> TypedCodec<T> of(Class<T> type, String route) {
+		TypedCodec<T> codec = new TypedCodec<>(type, route);
+		codec.build(new ArrayList<>());
+		return codec;
+	}
+	
+	/**
+	 * @return The type written and read.
+	 */
+	public Class<T> getType() {
+		return this.type;
+	}
+	
+	/**
+	 * @return The route values of the type travel on.
+	 */
+	public String getRoute() {
+		return this.route;
+	}
+	
+	/**
+	 * Writes the fields of a value to the end of a payload.
+	 */
+	public void write(T value, Payload payload) {
+		try {
+			for(FieldCodec field : fields)
+				field.write(value, payload);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Reads a value from the next elements of a payload, consuming them.
+	 * 
+	 * @throws EmptyMessageException If the payload ends before every field is read.
+	 * @throws ClassCastException If the payload was not written by a codec for the same type.
+	 */
+	public T read(Payload payload) {
+		try {
+			if(allArguments) {
+				Object[] arguments = new Object[fields.length];
+				for(int i = 0; i < fields.length; i++)
+					arguments[i] = fields[i].read(payload);
+				return type.cast((Object) constructor.invokeExact(arguments));
+			}
+			T value = type.cast((Object) constructor.invokeExact());
+			for(FieldCodec field : fields)
+				field.read(value, payload);
+			return value;
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Finds the fields and constructor of the type.
+	 * 
+	 * @param building The types being built, to build each nested type once and reject cycles.
+	 */
+	private void build(List<Class<?>> building) {
+		if(Message.class.isAssignableFrom(type) || Request.class.isAssignableFrom(type) || Response.class.isAssignableFrom(type))
+			throw new IllegalArgumentException(type.getName() + " is already a pipeline message!");
+		if(type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+			throw new IllegalArgumentException(type.getName() + " can't be constructed!");
+		if(building.contains(type))
+			throw new IllegalArgumentException(type.getName() + " contains itself!");
+		building.add(type);
+		try {
+			findMembers(building);
+		} finally {
+			building.remove(type);
+		}
+	}
+	
+	private void findMembers(List<Class<?>> building) {
+		List<Field> declared = new ArrayList<>();
+		collectFields(type, declared);
+		Class<?>[] fieldTypes = new Class<?>[declared.size()];
+		for(int i = 0; i < fieldTypes.length; i++)
+			fieldTypes[i] = declared.get(i).getType();
+		Constructor<?> noArguments = null, everyArgument = null;
+		for(Constructor<?> candidate : type.getDeclaredConstructors()) {
+			if(candidate.getParameterCount() == 0)
+				noArguments = candidate;
+			else if(Arrays.equals(candidate.getParameterTypes(), fieldTypes))
+				everyArgument = candidate;
+		}
+		try {
+			allArguments = noArguments == null;
+			Constructor<?> chosen = allArguments ? everyArgument : noArguments;
+			if(chosen == null)
+				throw new IllegalArgumentException(type.getName() + " needs a no argument constructor, or a constructor taking every field in order!");
+			chosen.setAccessible(true);
+			constructor = LOOKUP.unreflectConstructor(chosen);
+			constructor = allArguments ? constructor.asType(constructor.type().generic()).asSpreader(Object[].class, fieldTypes.length) : constructor.asType(MethodType.methodType(Object.class));
+			fields = new FieldCodec[declared.size()];
+			for(int i = 0; i < fields.length; i++)
+				fields[i] = new FieldCodec(declared.get(i), !allArguments, building);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(type.getName() + " can't be accessed!", e);
+		}
+	}
+	
+	/**
+	 * Finds the fields written for a type, inherited fields first.
+	 * 
+	 * @throws IllegalArgumentException If the type inherits fields from a JDK class, which can't be reliably accessed.
+	 */
+	private static void collectFields(Class<?> type, List<Field> fields) {
+		Class<?> superclass = type.getSuperclass();
+		if(superclass != null && superclass != Object.class) {
+			if(superclass.getName().startsWith("java.")) {
+				for(Field field : superclass.getDeclaredFields())
+					if(isWritten(field))
+						throw new IllegalArgumentException(type.getName() + " inherits fields from " + superclass.getName() + "!");
+			} else {
+				collectFields(superclass, fields);
+			}
+		}
+		for(Field field : type.getDeclaredFields())
+			if(isWritten(field))
+				fields.add(field);
+	}
+	
+	private static boolean isWritten(Field field) {
+		return !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers());
+	}
+	
+	private static int kindOf(Class<?> type) {
+		if(type == boolean.class)
+			return BOOLEAN;
+		if(type == byte.class)
+			return BYTE;
+		if(type == short.class)
+			return SHORT;
+		if(type == char.class)
+			return CHAR;
+		if(type == int.class)
+			return INT;
+		if(type == long.class)
+			return LONG;
+		if(type == float.class)
+			return FLOAT;
+		if(type == double.class)
+			return DOUBLE;
+		if(type == String.class)
+			return STRING;
+		if(type == UUID.class)
+			return UNIQUE_ID;
+		if(type.isEnum())
+			return ENUM;
+		if(type.isPrimitive() || type.isArray() || type.getName().startsWith("java.") || type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+			return OBJECT;
+		return NESTED;
+	}
+	
+	/**
+	 * Writes and reads one field, through method handles typed to the field, so primitives are never boxed.
+	 */
+	private static class FieldCodec {
+		
+		private int kind;
+		
+		private MethodHandle getter;
+		
+		private MethodHandle setter;
+		
+		private Object[] constants;
+		
+		private TypedCodec<?> nested;
+		
+		private FieldCodec(Field field, boolean settable, List<Class<?>> building) throws IllegalAccessException {
+			Class<?> type = field.getType();
+			kind = kindOf(type);
+			if(kind == ENUM)
+				constants = type.getEnumConstants();
+			if(kind == NESTED) {
+				try {
+					nested = new TypedCodec<>(type, type.getName());
+					nested.build(building);
+				} catch (IllegalArgumentException e) {
+					// Not constructible from its fields, so written as a payload element instead.
+					kind = OBJECT;
+					nested = null;
+				}
+			}
+			Class<?> handleType = kind <= DOUBLE ? type : Object.class;
+			field.setAccessible(true);
+			getter = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(handleType, Object.class));
+			if(settable)
+				setter = LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, handleType));
+		}
+		
+		private void write(Object value, Payload payload) throws Throwable {
+			switch (kind) {
+			case BOOLEAN:
+				payload.writeBoolean((boolean) getter.invokeExact(value));
+				return;
+			case BYTE:
+				payload.writeInt((byte) getter.invokeExact(value));
+				return;
+			case SHORT:
+				payload.writeInt((short) getter.invokeExact(value));
+				return;
+			case CHAR:
+				payload.writeInt((char) getter.invokeExact(value));
+				return;
+			case INT:
+				payload.writeInt((int) getter.invokeExact(value));
+				return;
+			case LONG:
+				payload.writeLong((long) getter.invokeExact(value));
+				return;
+			case FLOAT:
+				payload.writeInt(Float.floatToRawIntBits((float) getter.invokeExact(value)));
+				return;
+			case DOUBLE:
+				payload.writeDouble((double) getter.invokeExact(value));
+				return;
+			case STRING:
+				payload.writeString((String) (Object) getter.invokeExact(value));
+				return;
+			case UNIQUE_ID:
+				payload.writeUUID((UUID) (Object) getter.invokeExact(value));
+				return;
+			case ENUM:
+				Enum<?> constant = (Enum<?>) (Object) getter.invokeExact(value);
+				payload.writeInt(constant == null ? -1 : constant.ordinal());
+				return;
+			case NESTED:
+				Object child = (Object) getter.invokeExact(value);
+				payload.writeBoolean(child != null);
+				if(child != null)
+					writeNested(nested, child, payload);
+				return;
+			default:
+				payload.append((Object) getter.invokeExact(value));
+			}
+		}
+		
+		private Object read(Payload payload) {
+			switch (kind) {
+			case BOOLEAN:
+				return payload.readBoolean();
+			case BYTE:
+				return (byte) payload.readInt();
+			case SHORT:
+				return (short) payload.readInt();
+			case CHAR:
+				return (char) payload.readInt();
+			case INT:
+				return payload.readInt();
+			case LONG:
+				return payload.readLong();
+			case FLOAT:
+				return Float.intBitsToFloat(payload.readInt());
+			case DOUBLE:
+				return payload.readDouble();
+			case STRING:
+				return payload.readString();
+			case UNIQUE_ID:
+				return payload.readUUID();
+			case ENUM:
+				int ordinal = payload.readInt();
+				if(ordinal < -1 || ordinal >= constants.length)
+					throw new RuntimeException(new MalformedFrameException());
+				return ordinal == -1 ? null : constants[ordinal];
+			case NESTED:
+				return payload.readBoolean() ? nested.read(payload) : null;
+			default:
+				return payload.read();
+			}
+		}
+		
+		private void read(Object value, Payload payload) throws Throwable {
+			switch (kind) {
+			case BOOLEAN:
+				setter.invokeExact(value, payload.readBoolean());
+				return;
+			case BYTE:
+				setter.invokeExact(value, (byte) payload.readInt());
+				return;
+			case SHORT:
+				setter.invokeExact(value, (short) payload.readInt());
+				return;
+			case CHAR:
+				setter.invokeExact(value, (char) payload.readInt());
+				return;
+			case INT:
+				setter.invokeExact(value, payload.readInt());
+				return;
+			case LONG:
+				setter.invokeExact(value, payload.readLong());
+				return;
+			case FLOAT:
+				setter.invokeExact(value, Float.intBitsToFloat(payload.readInt()));
+				return;
+			case DOUBLE:
+				setter.invokeExact(value, payload.readDouble());
+				return;
+			default:
+				setter.invokeExact(value, read(payload));
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		private static <T> void writeNested(TypedCodec<T> codec, Object value, Payload payload) {
+			codec.write((T) value, payload);
+		}
+		
+	}
+
+}
@@ -0,0 +1,68 @@
+package dev.westernpine.pipelines.live.local;
+
+import java.time.Duration;
+
+/**
+ * A proxy and server pipeline connected to each other in the same JVM.
+ * 
+ * Link settings made here apply in both directions, each pipeline can still be configured on its own.
+ */
+public class LoopbackPair {
+	
+	private final LoopbackPipeline proxy;
+	
+	private final LoopbackPipeline server;
+	
+	/**
+	 * A proxy and server pipeline connected with no latency, no size cap and no loss.
+	 */
+	public LoopbackPair() {
+		this.proxy = new LoopbackPipeline("Proxy");
+		this.server = new LoopbackPipeline("Server");
+		LoopbackPipeline.connect(proxy, server);
+	}
+	
+	public LoopbackPipeline getProxy() {
+		return this.proxy;
+	}
+	
+	public LoopbackPipeline getServer() {
+		return this.server;
+	}
+	
+	/**
+	 * Sets the one way delay of the link, so a round trip takes twice as long.
+	 */
+	public LoopbackPair setLatency(Duration latency) {
+		proxy.setLatency(latency);
+		server.setLatency(latency);
+		return this;
+	}
+	
+	/**
+	 * Sets the largest frame either side can send.
+	 */
+	public LoopbackPair setMaxFrameSize(int maxFrameSize) {
+		proxy.setMaxFrameSize(maxFrameSize);
+		server.setMaxFrameSize(maxFrameSize);
+		return this;
+	}
+	
+	/**
+	 * Sets the chance of a frame sent by either side being lost, from 0 to 1.
+	 */
+	public LoopbackPair setLossRate(double lossRate) {
+		proxy.setLossRate(lossRate);
+		server.setLossRate(lossRate);
+		return this;
+	}
+	
+	/**
+	 * Stops both pipelines.
+	 */
+	public void close() {
+		proxy.close();
+		server.close();
+	}
+
+}
@@ -0,0 +1,226 @@
+package dev.westernpine.pipelines.live.local;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.westernpine.pipelines.api.Pipeline;
+import dev.westernpine.pipelines.lib.AbstractPipeline;
+import dev.westernpine.pipelines.lib.NoRoutablePathException;
+
+/**
+ * A pipeline connected to another pipeline in the same JVM, without a server, proxy or player.
+ * 
+ * Frames are queued and received on a delivery thread, like they would be on a platform's network thread,
+ * after the link's latency has passed. The link can also cap the frame size and randomly lose frames,
+ * for load testing and reproducing timeouts.
+ */
+public class LoopbackPipeline extends AbstractPipeline {
+	
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+	
+	private final String name;
+	
+	private final BlockingQueue<Delivery> queue = new DelayQueue<>();
+	
+	private final AtomicBoolean started = new AtomicBoolean();
+	
+	private final Thread worker;
+	
+	private volatile LoopbackPipeline peer;
+	
+	private volatile boolean running = true;
+	
+	private volatile long latencyNanos;
+	
+	private volatile int maxFrameSize = Integer.MAX_VALUE;
+	
+	private volatile double lossRate;
+	
+	private final AtomicLong delivered = new AtomicLong();
+	
+	private final AtomicLong lost = new AtomicLong();
+	
+	/**
+	 * PLEASE refer to this class as a the {@link Pipeline} interface for documentation support.
+	 * 
+	 * @param name The name of this end of the link, used to name its delivery thread.
+	 */
+	public LoopbackPipeline(String name) {
+		this.name = name;
+		this.worker = new Thread(this::run, "Loopback Pipeline " + name);
+		this.worker.setDaemon(true);
+	}
+	
+	/**
+	 * Connects two pipelines to each other, replacing any previous peers.
+	 */
+	public static void connect(LoopbackPipeline first, LoopbackPipeline second) {
+		first.peer = second;
+		second.peer = first;
+	}
+	
+	public String getName() {
+		return this.name;
+	}
+	
+	public LoopbackPipeline getPeer() {
+		return this.peer;
+	}
+	
+	/**
+	 * Disconnects this pipeline from its peer, frames sent afterwards fail to find a route.
+	 */
+	public void disconnect() {
+		LoopbackPipeline peer = this.peer;
+		this.peer = null;
+		if(peer != null && peer.peer == this)
+			peer.peer = null;
+	}
+	
+	/**
+	 * @return The delay before a frame sent by this pipeline is received by its peer.
+	 */
+	public Duration getLatency() {
+		return Duration.ofNanos(latencyNanos);
+	}
+	
+	/**
+	 * Sets the delay before a frame sent by this pipeline is received by its peer.
+	 */
+	public void setLatency(Duration latency) {
+		this.latencyNanos = Math.max(latency.toNanos(), 0);
+	}
+	
+	/**
+	 * @return The largest frame this pipeline can send.
+	 */
+	public int getMaxFrameSize() {
+		return this.maxFrameSize;
+	}
+	
+	/**
+	 * Sets the largest frame this pipeline can send, like the plugin message size limit of a platform.
+	 * Sending a larger frame throws an {@link IllegalArgumentException}, as the platforms do.
+	 */
+	public void setMaxFrameSize(int maxFrameSize) {
+		this.maxFrameSize = maxFrameSize;
+	}
+	
+	/**
+	 * @return The chance of a frame sent by this pipeline being lost.
+	 */
+	public double getLossRate() {
+		return this.lossRate;
+	}
+	
+	/**
+	 * Sets the chance of a frame sent by this pipeline being silently lost, from 0 to 1.
+	 */
+	public void setLossRate(double lossRate) {
+		this.lossRate = Math.min(Math.max(lossRate, 0), 1);
+	}
+	
+	/**
+	 * @return The amount of frames this pipeline has delivered to its peer.
+	 */
+	public long getDelivered() {
+		return delivered.get();
+	}
+	
+	/**
+	 * @return The amount of frames this pipeline has lost.
+	 */
+	public long getLost() {
+		return lost.get();
+	}
+	
+	/**
+	 * @return The amount of frames sent by this pipeline, still waiting on the link's latency.
+	 */
+	public int getInFlight() {
+		return queue.size();
+	}
+	
+	/**
+	 * Stops the delivery thread, frames still in flight are never received.
+	 */
+	public void close() {
+		running = false;
+		disconnect();
+		queue.clear();
+		worker.interrupt();
+	}
+	
+	protected void transmit(UUID carrier, byte[] frame) {
+		if(!running || peer == null)
+			throw new RuntimeException(new NoRoutablePathException());
+		if(frame.length > maxFrameSize)
+			throw new IllegalArgumentException("Frame is " + frame.length + " bytes, which is larger than the maximum of " + maxFrameSize + " bytes.");
+		if(lossRate > 0 && ThreadLocalRandom.current().nextDouble() < lossRate) {
+			lost.incrementAndGet();
+			return;
+		}
+		if(started.compareAndSet(false, true))
+			worker.start();
+		queue.add(new Delivery(carrier, frame, System.nanoTime() + latencyNanos));
+	}
+	
+	private void run() {
+		while(running) {
+			Delivery delivery;
+			try {
+				delivery = queue.take();
+			} catch (InterruptedException e) {
+				continue;
+			}
+			LoopbackPipeline peer = this.peer;
+			if(peer == null) {
+				lost.incrementAndGet();
+				continue;
+			}
+			delivered.incrementAndGet();
+			peer.receive(delivery.carrier, delivery.frame);
+		}
+	}
+	
+	/**
+	 * A frame waiting on the link's latency, ordered by when it is due and then by when it was sent.
+	 */
+	private static class Delivery implements Delayed {
+		
+		private final UUID carrier;
+		
+		private final byte[] frame;
+		
+		private final long deadline;
+		
+		private final long sequence = SEQUENCE.getAndIncrement();
+		
+		private Delivery(UUID carrier, byte[] frame, long deadline) {
+			this.carrier = carrier;
+			this.frame = frame;
+			this.deadline = deadline;
+		}
+		
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		
+		@Override
+		public int compareTo(Delayed other) {
+			Delivery delivery = (Delivery) other;
+			int compare = Long.compare(deadline - delivery.deadline, 0);
+			return compare != 0 ? compare : Long.compare(sequence, delivery.sequence);
+		}
+		
+	}
+
+}
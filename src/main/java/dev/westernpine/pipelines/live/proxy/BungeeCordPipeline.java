@@ -1,43 +1,23 @@
 package dev.westernpine.pipelines.live.proxy;
 
-import java.io.ByteArrayInputStream;
-import java.io.ObjectInputStream;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map.Entry;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Collection;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
-import dev.westernpine.pipelines.api.Message;
-import dev.westernpine.pipelines.api.MessageType;
 import dev.westernpine.pipelines.api.Pipeline;
-import dev.westernpine.pipelines.api.Request;
-import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.lib.AbstractProxyPipeline;
 import dev.westernpine.pipelines.lib.NoRoutablePathException;
 import dev.westernpine.pipelines.lib.PipelineDefaults;
-import dev.westernpine.pipelines.lib.ResponseListener;
+import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.event.PluginMessageEvent;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.api.plugin.Plugin;
 import net.md_5.bungee.event.EventHandler;
 
-public class BungeeCordPipeline implements Pipeline, Listener {
+public class BungeeCordPipeline extends AbstractProxyPipeline implements Listener {
 	
 	private Plugin plugin;
 	
-	private Set<Consumer<Message>> messageListeners = new HashSet<>();
-	
-	private Set<Consumer<Request>> requestListeners = new HashSet<>();
-	
-	private HashMap<UUID, ResponseListener> responseListeners = new HashMap<>();
-	
 	private String outgoingChannel;
 	
 	private String incomingChannel;
@@ -60,86 +40,37 @@ public class BungeeCordPipeline implements Pipeline, Listener {
 		plugin.getProxy().registerChannel(incomingChannel);
 		
 		plugin.getProxy().getPluginManager().registerListener(plugin, this);
-		
-		plugin.getProxy().getScheduler().schedule(plugin, () -> {
-			try {
-				Iterator<Entry<UUID, ResponseListener>> it = responseListeners.entrySet().iterator();
-				while(it.hasNext()) {
-					Entry<UUID, ResponseListener> entry = it.next();
-					if(entry.getValue().isExpired()) {
-						entry.getValue().handle();
-						it.remove();
-					}
-				}
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-		}, 0, 1, TimeUnit.SECONDS);
 	}
 	
-	@SuppressWarnings("unchecked")
 	@EventHandler
     public void onPluginMessage(PluginMessageEvent event) {
-		if(event.getTag().equals(incomingChannel)) {
-			try (ByteArrayInputStream bytes = new ByteArrayInputStream(event.getData())) {
-				try (ObjectInputStream input = new ObjectInputStream(bytes)) {
-					MessageType type = (MessageType) input.readObject();
-					LinkedList<Object> payload = (LinkedList<Object>) input.readObject();
-					switch (type) {
-					case REQUEST:
-						Request request = new Request(((ProxiedPlayer)event.getReceiver()).getUniqueId(), payload, (UUID) input.readObject());
-						requestListeners.forEach(listener -> listener.accept(request));
-						break;
-					case RESPONSE:
-						Response response = new Response(((ProxiedPlayer)event.getReceiver()).getUniqueId(), payload, (UUID) input.readObject());
-						Iterator<Entry<UUID, ResponseListener>> it = responseListeners.entrySet().iterator();
-						while(it.hasNext()) {
-							Entry<UUID, ResponseListener> entry = it.next();
-							if(entry.getKey().equals(response.getUuid())) {
-								it.remove();
-								entry.getValue().handle(response);
-								break;
-							}
-						}
-						break;
-					default:
-						Message message = new Message(((ProxiedPlayer)event.getReceiver()).getUniqueId(), payload);
-						messageListeners.forEach(listener -> listener.accept(message));
-						break;
-					}
-				}
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-		}
+		if(event.getTag().equals(incomingChannel))
+			receive(((ProxiedPlayer)event.getReceiver()).getUniqueId(), event.getData());
 	}
 	
-	public void onMessage(Consumer<Message> messageHandler) {
-		messageListeners.add(messageHandler);
+	protected boolean isAnyCarrier() {
+		return true;
 	}
 	
-	public void onRequest(Consumer<Request> requestHandler) {
-		requestListeners.add(requestHandler);
+	protected UUID selectCarrier(UUID carrier, int frameSize) {
+		return selectCarrier(plugin.getProxy().getPlayers(), ProxiedPlayer::getUniqueId, frameSize);
 	}
 	
-	public void send(Message message) {
-		if(plugin.getProxy().getOnlineCount() < 1)
+	protected void transmit(UUID carrier, byte[] frame) {
+		ProxiedPlayer player = plugin.getProxy().getPlayer(carrier);
+		if(player == null)
 			throw new RuntimeException(new NoRoutablePathException());
-		plugin.getProxy().getPlayers().iterator().next().sendData(outgoingChannel, message.toByteArray());
+		player.sendData(outgoingChannel, frame);
 	}
 	
-	public CompletableFuture<Optional<Response>> request(Request request) {
-		if(plugin.getProxy().getOnlineCount() < 1)
+	protected void transmit(String server, byte[] frame) {
+		ServerInfo target = plugin.getProxy().getServerInfo(server);
+		if(target == null || !target.sendData(outgoingChannel, frame, false))
 			throw new RuntimeException(new NoRoutablePathException());
-		plugin.getProxy().getPlayers().iterator().next().sendData(outgoingChannel, request.toByteArray());
-		responseListeners.put(request.getUuid(), new ResponseListener(new CompletableFuture<>()));
-		return responseListeners.get(request.getUuid()).getResponseHandler();
 	}
 	
-	public void respond(Response response) {
-		if(plugin.getProxy().getOnlineCount() < 1)
-			throw new RuntimeException(new NoRoutablePathException());
-		plugin.getProxy().getPlayers().iterator().next().sendData(outgoingChannel, response.toByteArray());
+	public Collection<String> getServers() {
+		return plugin.getProxy().getServers().keySet();
 	}
 
-}
\ No newline at end of file
+}
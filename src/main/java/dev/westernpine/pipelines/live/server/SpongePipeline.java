@@ -1,44 +1,24 @@
 package dev.westernpine.pipelines.live.server;
 
-import java.io.ByteArrayInputStream;
-import java.io.ObjectInputStream;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map.Entry;
-import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.Executor;
 
 import org.spongepowered.api.Game;
 import org.spongepowered.api.Platform;
+import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.network.ChannelBinding.RawDataChannel;
 import org.spongepowered.api.network.ChannelRegistrationException;
 import org.spongepowered.api.network.PlayerConnection;
 
-import dev.westernpine.pipelines.api.Message;
-import dev.westernpine.pipelines.api.MessageType;
 import dev.westernpine.pipelines.api.Pipeline;
-import dev.westernpine.pipelines.api.Request;
-import dev.westernpine.pipelines.api.Response;
+import dev.westernpine.pipelines.lib.AbstractPipeline;
 import dev.westernpine.pipelines.lib.NoRoutablePathException;
 import dev.westernpine.pipelines.lib.PipelineDefaults;
-import dev.westernpine.pipelines.lib.ResponseListener;
 
-public class SpongePipeline implements Pipeline {
+public class SpongePipeline extends AbstractPipeline {
 	
 	private Game game;
 	
-	private Set<Consumer<Message>> messageListeners = new HashSet<>();
-	
-	private Set<Consumer<Request>> requestListeners = new HashSet<>();
-	
-	private HashMap<UUID, ResponseListener> responseListeners = new HashMap<>();
-	
 	private RawDataChannel outgoingChannel;
 	
 	@SuppressWarnings("unused")
@@ -54,86 +34,40 @@ public class SpongePipeline implements Pipeline {
 	 * 
 	 * @throws ChannelRegistrationException - Thrown if the channel name is too long, or reserved.
 	 */
-	@SuppressWarnings("unchecked")
 	public SpongePipeline(Game game, String namespace, String outgoing, String incoming) {
 		this.game = game;
 		String outgoingChannel = namespace + PipelineDefaults.SPLITTER + outgoing;
 		String incomingChannel = namespace + PipelineDefaults.SPLITTER + incoming;
 		this.outgoingChannel = game.getChannelRegistrar().createRawChannel(game, outgoingChannel);
 		(this.incomingChannel = game.getChannelRegistrar().createRawChannel(game, incomingChannel)).addListener(Platform.Type.SERVER, (buffer, connection, side) -> {
-			try (ByteArrayInputStream bytes = new ByteArrayInputStream(buffer.readBytes(buffer.available()))) {
-				try (ObjectInputStream input = new ObjectInputStream(bytes)) {
-					MessageType type = (MessageType) input.readObject();
-					LinkedList<Object> payload = (LinkedList<Object>) input.readObject();
-					switch (type) {
-					case REQUEST:
-						Request request = new Request(((PlayerConnection)connection).getPlayer().getUniqueId(), payload, (UUID) input.readObject());
-						requestListeners.forEach(listener -> listener.accept(request));
-						break;
-					case RESPONSE:
-						Response response = new Response(((PlayerConnection)connection).getPlayer().getUniqueId(), payload, (UUID) input.readObject());
-						Iterator<Entry<UUID, ResponseListener>> it = responseListeners.entrySet().iterator();
-						while(it.hasNext()) {
-							Entry<UUID, ResponseListener> entry = it.next();
-							if(entry.getKey().equals(response.getUuid())) {
-								it.remove();
-								entry.getValue().handle(response);
-								break;
-							}
-						}
-						break;
-					default:
-						Message message = new Message(((PlayerConnection)connection).getPlayer().getUniqueId(), payload);
-						messageListeners.forEach(listener -> listener.accept(message));
-						break;
-					}
-				}
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			receive(((PlayerConnection)connection).getPlayer().getUniqueId(), buffer.readBytes(buffer.available()));
 		});
-		game.getScheduler().createTaskBuilder().interval(1, TimeUnit.SECONDS).execute(() -> {
-			try {
-				Iterator<Entry<UUID, ResponseListener>> it = responseListeners.entrySet().iterator();
-				while(it.hasNext()) {
-					Entry<UUID, ResponseListener> entry = it.next();
-					if(entry.getValue().isExpired()) {
-						entry.getValue().handle();
-						it.remove();
-					}
-				}
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-		}).submit(game);
+		game.getScheduler().createTaskBuilder().intervalTicks(1).execute(this::flush).submit(game);
 	}
 	
-	public void onMessage(Consumer<Message> messageHandler) {
-		messageListeners.add(messageHandler);
-	}
-	
-	public void onRequest(Consumer<Request> requestHandler) {
-		requestListeners.add(requestHandler);
+	/**
+	 * @return An executor running tasks on the server's main thread, for handlers that use the Sponge API.
+	 */
+	public Executor getMainThreadExecutor() {
+		return task -> {
+			if(game.getServer().isMainThread())
+				task.run();
+			else
+				game.getScheduler().createTaskBuilder().execute(task).submit(game);
+		};
 	}
 	
-	public void send(Message message) {
-		if(game.getServer().getOnlinePlayers().size() < 1)
-			throw new RuntimeException(new NoRoutablePathException());
-		outgoingChannel.sendTo(game.getServer().getOnlinePlayers().iterator().next(), buffer -> buffer.writeBytes(message.toByteArray()));
+	protected boolean isAnyCarrier() {
+		return true;
 	}
 	
-	public CompletableFuture<Optional<Response>> request(Request request) {
-		if(game.getServer().getOnlinePlayers().size() < 1)
-			throw new RuntimeException(new NoRoutablePathException());
-		outgoingChannel.sendTo(game.getServer().getOnlinePlayers().iterator().next(), buffer -> buffer.writeBytes(request.toByteArray()));
-		responseListeners.put(request.getUuid(), new ResponseListener(new CompletableFuture<>()));
-		return responseListeners.get(request.getUuid()).getResponseHandler();
+	protected UUID selectCarrier(UUID carrier, int frameSize) {
+		return selectCarrier(game.getServer().getOnlinePlayers(), Player::getUniqueId, frameSize);
 	}
 	
-	public void respond(Response response) {
-		if(game.getServer().getOnlinePlayers().size() < 1)
-			throw new RuntimeException(new NoRoutablePathException());
-		outgoingChannel.sendTo(game.getServer().getOnlinePlayers().iterator().next(), buffer -> buffer.writeBytes(response.toByteArray()));
+	protected void transmit(UUID carrier, byte[] frame) {
+		Player player = game.getServer().getPlayer(carrier).orElseThrow(() -> new RuntimeException(new NoRoutablePathException()));
+		outgoingChannel.sendTo(player, buffer -> buffer.writeBytes(frame));
 	}
 
-}
\ No newline at end of file
+}